@@ -0,0 +1,100 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.model.dto.BasicDetailDTO;
+import com.blockchain.csr.model.entity.Activity;
+import com.blockchain.csr.repository.ActivityRepository;
+import com.blockchain.csr.service.ActivityDetailFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ActivityDetailFactory on the per-row paths: validating a submitted detail map, building the
+ * pending detail stored on signup, and converting the stored detail (a LinkedHashMap read back by
+ * JsonConverter) into its DTO, which runs once per user activity in list responses.
+ * The activity lookup of createPendingDetail is answered by an in-memory stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityDetailBenchmark {
+
+    private ActivityDetailFactory factory;
+    private Map<String, Object> basicRequest;
+    private Map<String, Object> donationRequest;
+    private Serializable storedDuration;
+    private Serializable storedDonation;
+
+    @Setup
+    public void setUp() {
+        Activity activity = new Activity();
+        activity.setId(1);
+        activity.setDuration(120);
+        ActivityRepository activityRepository = (ActivityRepository) Proxy.newProxyInstance(
+                ActivityRepository.class.getClassLoader(),
+                new Class<?>[]{ActivityRepository.class},
+                (proxy, method, args) -> {
+                    if ("findById".equals(method.getName())) {
+                        return Optional.of(activity);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        factory = new ActivityDetailFactory(new ObjectMapper(), activityRepository);
+
+        basicRequest = Map.of("comment", "Helped set up the venue and guided visitors");
+        donationRequest = Map.of("comment", "Monthly donation", "amount", "88.50");
+
+        LinkedHashMap<String, Object> duration = new LinkedHashMap<>();
+        duration.put("comment", "Helped set up the venue and guided visitors");
+        duration.put("duration", 120);
+        duration.put("chainId", "0x6f1c2a9e4b7d3c5f8a0e1d2b3c4f5a6e7d8c9b0a1f2e3d4c5b6a7f8e9d0c1b2a");
+        duration.put("chainState", "SENT");
+        storedDuration = duration;
+
+        LinkedHashMap<String, Object> donation = new LinkedHashMap<>();
+        donation.put("comment", "Monthly donation");
+        donation.put("amount", 88.5);
+        donation.put("chainId", "0x1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0b1c2d3e4f5a6b7c8d9e0f1a2b");
+        donation.put("chainState", "SENT");
+        storedDonation = donation;
+    }
+
+    @Benchmark
+    public BasicDetailDTO createFromRequestBasic() {
+        return factory.createDetail(1, basicRequest);
+    }
+
+    @Benchmark
+    public BasicDetailDTO createFromRequestDonation() {
+        return factory.createDetail(2, donationRequest);
+    }
+
+    @Benchmark
+    public BasicDetailDTO createPendingDuration() {
+        return factory.createPendingDetail(1, basicRequest, 1);
+    }
+
+    @Benchmark
+    public BasicDetailDTO createPendingDonation() {
+        return factory.createPendingDetail(2, donationRequest, 1);
+    }
+
+    @Benchmark
+    public BasicDetailDTO createFromStoredDuration() {
+        return factory.createDetail(1, storedDuration);
+    }
+
+    @Benchmark
+    public BasicDetailDTO createFromStoredDonation() {
+        return factory.createDetail(2, storedDonation);
+    }
+}
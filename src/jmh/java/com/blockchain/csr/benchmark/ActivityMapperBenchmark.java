@@ -0,0 +1,49 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.model.dto.ActivityResponseDto;
+import com.blockchain.csr.model.entity.Activity;
+import com.blockchain.csr.model.mapper.ActivityMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ActivityMapper.toResponseDto, called once per activity in list responses; most of its cost is
+ * parsing the visible_locations / visible_roles JSON arrays of each row
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityMapperBenchmark {
+
+    private ActivityMapper mapper;
+    private Activity activity;
+
+    @Setup
+    public void setUp() {
+        mapper = new ActivityMapper();
+        activity = new Activity();
+        activity.setId(1);
+        activity.setName("Beach Cleanup");
+        activity.setEventId(1);
+        activity.setTemplateId(1);
+        activity.setDuration(120);
+        activity.setDescription("Collect litter along the shoreline");
+        activity.setStartTime(LocalDateTime.of(2025, 6, 1, 9, 0));
+        activity.setEndTime(LocalDateTime.of(2025, 6, 1, 12, 0));
+        activity.setCreatedAt(LocalDateTime.of(2025, 5, 20, 10, 30));
+        activity.setVisibleLocations("[\"Shanghai\",\"Beijing\",\"Shenzhen\",\"Hangzhou\"]");
+        activity.setVisibleRoles("[\"USER\",\"ADMIN\"]");
+        activity.setImage1("/api/photos/12/content");
+        activity.setImage2("/api/photos/13/content");
+    }
+
+    @Benchmark
+    public ActivityResponseDto toResponseDto() {
+        return mapper.toResponseDto(activity);
+    }
+}
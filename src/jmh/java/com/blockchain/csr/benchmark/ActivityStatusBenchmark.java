@@ -0,0 +1,41 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.model.enums.ActivityStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event/activity status calculation, run for every event and activity in list responses.
+ * {@code current} includes reading the clock in Asia/Shanghai; {@code fixedNow} is the comparison alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityStatusBenchmark {
+
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        startTime = LocalDateTime.of(2025, 6, 1, 9, 0);
+        endTime = LocalDateTime.of(2025, 6, 1, 12, 0);
+        now = LocalDateTime.of(2025, 6, 1, 10, 0);
+    }
+
+    @Benchmark
+    public String current() {
+        return ActivityStatus.calculate(startTime, endTime);
+    }
+
+    @Benchmark
+    public String fixedNow() {
+        return ActivityStatus.calculate(startTime, endTime, now);
+    }
+}
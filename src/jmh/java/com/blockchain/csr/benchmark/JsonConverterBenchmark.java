@@ -0,0 +1,47 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.config.JsonConverter;
+import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JPA converter behind user_activity.detail: serializing a detail DTO on write and parsing
+ * the column back into a LinkedHashMap for every row loaded
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    private JsonConverter converter;
+    private Serializable detail;
+    private String column;
+
+    @Setup
+    public void setUp() {
+        converter = new JsonConverter(new ObjectMapper());
+        DonationDetailDTO donation = new DonationDetailDTO("Monthly donation", new BigDecimal("88.50"));
+        donation.setChainId("0x1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0b1c2d3e4f5a6b7c8d9e0f1a2b");
+        donation.setChainState("SENT");
+        detail = donation;
+        column = converter.convertToDatabaseColumn(detail);
+    }
+
+    @Benchmark
+    public String toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(detail);
+    }
+
+    @Benchmark
+    public Serializable toEntityAttribute() {
+        return converter.convertToEntityAttribute(column);
+    }
+}
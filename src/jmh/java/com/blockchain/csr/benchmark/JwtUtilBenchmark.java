@@ -0,0 +1,62 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.config.AuthenticatedUser;
+import com.blockchain.csr.config.JwtUtil;
+import com.blockchain.csr.config.TokenClaims;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling done for every authenticated request: the access token parse answered from the
+ * verified-token cache, a full signature verification (what every cache miss pays), the filter's
+ * validation against a user, and issuing a token at login/refresh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private AuthenticatedUser user;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmarkSecretKey1234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 300_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        user = new AuthenticatedUser(42, "benchmark-user", "{noop}password", "ROLE_USER");
+        accessToken = jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public TokenClaims parseAccessTokenCached() {
+        return jwtUtil.parseAccessToken(accessToken);
+    }
+
+    @Benchmark
+    public String verifySignature() {
+        return jwtUtil.extractClaim(accessToken, Claims::getSubject);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(accessToken, user);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken(user);
+    }
+}
@@ -0,0 +1,101 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.config.JwtUtil;
+import com.blockchain.csr.service.Impl.InMemoryRefreshTokenStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and revoke latency of the in-memory refresh token store against the previous
+ * single ConcurrentHashMap (token -> username), whose revoke-all scanned every entry.
+ * The DB store's lookup is one primary-key-like probe on the unique token_hash index and is
+ * dominated by the round trip, so it is not measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefreshTokenStoreBenchmark {
+
+    private static final int TOKENS_PER_USER = 5;
+
+    @Param({"10000", "100000"})
+    private int tokenCount;
+
+    private InMemoryRefreshTokenStore store;
+    private ConcurrentMap<String, String> legacy;
+    private String[] tokens;
+    private String[] hashes;
+    private Instant expiresAt;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryRefreshTokenStore();
+        legacy = new ConcurrentHashMap<>();
+        tokens = new String[tokenCount];
+        hashes = new String[tokenCount];
+        expiresAt = Instant.now().plus(7, ChronoUnit.DAYS);
+        for (int i = 0; i < tokenCount; i++) {
+            tokens[i] = "eyJhbGciOiJIUzI1NiJ9.refresh-" + i + ".signature-" + Integer.toHexString(i * 31);
+            hashes[i] = JwtUtil.tokenHash(tokens[i]);
+            String username = user(i);
+            store.save(hashes[i], username, expiresAt);
+            legacy.put(tokens[i], username);
+        }
+    }
+
+    @Benchmark
+    public String lookupHit() {
+        return store.findUsername(hashes[ThreadLocalRandom.current().nextInt(tokenCount)]);
+    }
+
+    @Benchmark
+    public String lookupHitIncludingHash() {
+        return store.findUsername(JwtUtil.tokenHash(tokens[ThreadLocalRandom.current().nextInt(tokenCount)]));
+    }
+
+    @Benchmark
+    public String lookupMiss() {
+        return store.findUsername("missing-" + ThreadLocalRandom.current().nextInt(tokenCount));
+    }
+
+    @Benchmark
+    public String legacyLookupHit() {
+        return legacy.get(tokens[ThreadLocalRandom.current().nextInt(tokenCount)]);
+    }
+
+    /**
+     * Revoke all tokens of one user, then re-issue them so the state stays the same
+     */
+    @Benchmark
+    public void revokeAllForUser() {
+        int first = ThreadLocalRandom.current().nextInt(tokenCount / TOKENS_PER_USER) * TOKENS_PER_USER;
+        String username = user(first);
+        store.removeAllForUser(username);
+        for (int i = first; i < first + TOKENS_PER_USER && i < tokenCount; i++) {
+            store.save(hashes[i], username, expiresAt);
+        }
+    }
+
+    @Benchmark
+    public void legacyRevokeAllForUser() {
+        int first = ThreadLocalRandom.current().nextInt(tokenCount / TOKENS_PER_USER) * TOKENS_PER_USER;
+        String username = user(first);
+        legacy.entrySet().removeIf(entry -> username.equals(entry.getValue()));
+        for (int i = first; i < first + TOKENS_PER_USER && i < tokenCount; i++) {
+            legacy.put(tokens[i], username);
+        }
+    }
+
+    private static String user(int tokenIndex) {
+        return "user" + tokenIndex / TOKENS_PER_USER;
+    }
+}
@@ -0,0 +1,66 @@
+package com.blockchain.csr.benchmark;
+
+import com.blockchain.csr.service.TokenBloomFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the revocation check on the common path: a token that was not revoked
+ * is answered by the Bloom filter alone. An exact in-memory set is measured for comparison;
+ * the database confirmation of filter hits is not measured since it only runs for revoked
+ * tokens and false positives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"1000", "100000"})
+    private int revokedCount;
+
+    private TokenBloomFilter filter;
+    private Set<String> exact;
+    private String[] revoked;
+    private String[] notRevoked;
+
+    @Setup
+    public void setUp() {
+        filter = new TokenBloomFilter(100_000, 0.001);
+        exact = ConcurrentHashMap.newKeySet();
+        revoked = new String[revokedCount];
+        for (int i = 0; i < revokedCount; i++) {
+            revoked[i] = UUID.randomUUID().toString();
+            filter.put(revoked[i]);
+            exact.add(revoked[i]);
+        }
+        notRevoked = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            notRevoked[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    public boolean filterNotRevoked() {
+        return filter.mightContain(notRevoked[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+
+    @Benchmark
+    public boolean filterRevoked() {
+        return filter.mightContain(revoked[ThreadLocalRandom.current().nextInt(revokedCount)]);
+    }
+
+    @Benchmark
+    public boolean exactSetNotRevoked() {
+        return exact.contains(notRevoked[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+}
@@ -0,0 +1,114 @@
+package com.blockchain.csr.loadtest;
+
+import com.blockchain.csr.CsrApplication;
+import com.blockchain.csr.dataset.DatasetGenerator;
+import com.blockchain.csr.dataset.DatasetSpec;
+import com.blockchain.csr.service.ParticipationStatsService;
+import com.blockchain.csr.service.UserService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application started in-process on an in-memory H2 database in MySQL mode, with the chain
+ * node replaced by {@link StubChainServer}. The schema is created by Hibernate on every run.
+ */
+final class EmbeddedTarget implements AutoCloseable {
+
+    // H2 stores a string bound to a JSON column as a JSON string literal, so the columns the
+    // entities map as JSON text are switched to CLOB to read back what MySQL would return
+    private static final String[][] JSON_COLUMNS = {
+            {"user_activity", "detail"},
+            {"activity", "visible_locations"},
+            {"activity", "visible_roles"},
+            {"template", "detail"}
+    };
+
+    private final StubChainServer chain;
+    private final ConfigurableApplicationContext context;
+    private final LoadTestOptions options;
+    private final String baseUrl;
+
+    private EmbeddedTarget(StubChainServer chain, ConfigurableApplicationContext context, LoadTestOptions options) {
+        this.chain = chain;
+        this.context = context;
+        this.options = options;
+        this.baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    static EmbeddedTarget start(LoadTestOptions options) throws IOException {
+        StubChainServer chain = StubChainServer.start(options.chainLatencyMs());
+        Path dataDir = Files.createTempDirectory("csr-loadtest");
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:csr-loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("jwt.secret", "loadTestSecretKey12345678901234567890123456789012345678901234");
+        properties.put("jwt.access-token-expiration", "3600000");
+        properties.put("jwt.refresh-token-expiration", "86400000");
+        properties.put("blockchain.api.base-url", chain.baseUrl());
+        properties.put("photo.storage.dir", dataDir.resolve("photos").toString());
+        properties.put("photo.thumbnail.dir", dataDir.resolve("photo-thumbnails").toString());
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(options.appProperties());
+
+        List<String> args = new ArrayList<>();
+        properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+        ConfigurableApplicationContext context;
+        try {
+            context = SpringApplication.run(CsrApplication.class, args.toArray(new String[0]));
+        } catch (RuntimeException e) {
+            chain.close();
+            throw e;
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        for (String[] column : JSON_COLUMNS) {
+            jdbcTemplate.execute("ALTER TABLE " + column[0] + " ALTER COLUMN " + column[1] + " SET DATA TYPE CLOB");
+        }
+        context.getBean(UserService.class).createAdminUser(options.adminUsername(), options.adminPassword(), null, null, null);
+        return new EmbeddedTarget(chain, context, options);
+    }
+
+    /**
+     * Appends the --dataset rows after whatever the scenario setup created, then rebuilds the stats tables
+     */
+    void loadDataset() {
+        if (options.dataset() == null) {
+            return;
+        }
+        DatasetSpec spec = DatasetSpec.preset(options.dataset()).with(options.datasetOverrides());
+        try {
+            new DatasetGenerator(context.getBean(DataSource.class), spec).generate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to generate dataset", e);
+        }
+        context.getBean(ParticipationStatsService.class).rebuildAll();
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        chain.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.blockchain.csr.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies per scenario entry. Every sample is kept so percentiles are exact; a run of a few
+ * minutes at a few thousand requests per second stays within tens of megabytes.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    void record(String name, long latencyNanos, int status) {
+        endpoints.computeIfAbsent(name, key -> new Endpoint()).add(latencyNanos, status);
+    }
+
+    /**
+     * A request the open-loop generator could not send because too many were in flight
+     */
+    void drop() {
+        dropped.incrementAndGet();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    Map<String, Summary> summarize(double seconds) {
+        Map<String, Summary> summaries = new TreeMap<>();
+        Endpoint all = new Endpoint();
+        endpoints.forEach((name, endpoint) -> {
+            summaries.put(name, endpoint.summarize(seconds));
+            all.addAll(endpoint);
+        });
+        summaries.put("_total", all.summarize(seconds));
+        return summaries;
+    }
+
+    /**
+     * @param status HTTP status of each response, 0 when the request failed without one
+     */
+    record Summary(long count, long errors, double throughput, double p50Ms, double p95Ms, double p99Ms, double maxMs,
+                   Map<Integer, Long> statuses) {
+    }
+
+    private static final class Endpoint {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void add(long latencyNanos, int status) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            statuses.merge(status, 1L, Long::sum);
+            if (status == 0 || status >= 400) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Endpoint other) {
+            synchronized (other) {
+                for (int i = 0; i < other.size; i++) {
+                    if (size == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, size * 2);
+                    }
+                    latencies[size++] = other.latencies[i];
+                }
+                errors += other.errors;
+                other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            }
+        }
+
+        synchronized Summary summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return new Summary(size, errors, seconds > 0 ? size / seconds : 0,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0,
+                    new TreeMap<>(statuses));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // Nearest rank
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+}
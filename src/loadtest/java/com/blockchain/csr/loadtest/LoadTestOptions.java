@@ -0,0 +1,96 @@
+package com.blockchain.csr.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadTestRunner}, given as {@code --name value} pairs.
+ * Options starting with {@code --app.} are passed to the embedded application as properties,
+ * e.g. {@code --app.request-log.enabled false}. {@code --dataset <preset>} preloads the embedded
+ * database with a generated dataset, tuned by {@code --dataset.<spec field> value}.
+ */
+record LoadTestOptions(
+        String scenario,
+        String baseUrl,
+        double rate,
+        int concurrency,
+        int maxInFlight,
+        int durationSeconds,
+        int warmupSeconds,
+        int users,
+        String userPassword,
+        String adminUsername,
+        String adminPassword,
+        long chainLatencyMs,
+        long timeoutMs,
+        String output,
+        String label,
+        Map<String, String> appProperties,
+        String dataset,
+        Map<String, String> datasetOverrides) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        Map<String, String> datasetOverrides = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String name = arg.substring(2);
+            String value;
+            int eq = name.indexOf('=');
+            if (eq >= 0) {
+                value = name.substring(eq + 1);
+                name = name.substring(0, eq);
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                value = args[++i];
+            } else {
+                value = "true";
+            }
+            if (name.startsWith("app.")) {
+                appProperties.put(name.substring(4), value);
+            } else if (name.startsWith("dataset.")) {
+                datasetOverrides.put(name.substring(8), value);
+            } else {
+                values.put(name, value);
+            }
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.getOrDefault("scenario", "classpath:loadtest/scenario.jsonl"),
+                values.get("base-url"),
+                Double.parseDouble(values.getOrDefault("rate", "0")),
+                Integer.parseInt(values.getOrDefault("concurrency", "16")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "1000")),
+                Integer.parseInt(values.getOrDefault("duration", "30")),
+                Integer.parseInt(values.getOrDefault("warmup", "5")),
+                Integer.parseInt(values.getOrDefault("users", "20")),
+                values.getOrDefault("user-password", "LoadTest123!"),
+                values.getOrDefault("admin-username", "loadtest-admin"),
+                values.getOrDefault("admin-password", "LoadTest123!"),
+                Long.parseLong(values.getOrDefault("chain-latency-ms", "20")),
+                Long.parseLong(values.getOrDefault("timeout-ms", "10000")),
+                values.getOrDefault("output", "target/loadtest/result.json"),
+                values.getOrDefault("label", ""),
+                appProperties,
+                values.get("dataset"),
+                datasetOverrides);
+        if (options.rate() < 0 || options.concurrency() <= 0 || options.durationSeconds() <= 0) {
+            throw new IllegalArgumentException("rate must be >= 0, concurrency and duration > 0");
+        }
+        if (options.dataset() != null && options.baseUrl() != null) {
+            throw new IllegalArgumentException("--dataset only applies to the embedded target; load an external database with DatasetGenerator");
+        }
+        return options;
+    }
+
+    /**
+     * Open loop sends at a fixed arrival rate regardless of response times; closed loop keeps
+     * {@link #concurrency()} requests outstanding
+     */
+    boolean openLoop() {
+        return rate > 0;
+    }
+}
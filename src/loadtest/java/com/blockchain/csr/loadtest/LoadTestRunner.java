@@ -0,0 +1,307 @@
+package com.blockchain.csr.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a scenario of recorded API requests and reports latency percentiles and throughput per
+ * entry as JSON, so runs can be compared across commits.
+ *
+ * <pre>
+ * mvn -P loadtest test-compile exec:exec -Dloadtest.args="--rate 200 --duration 60 --label $(git rev-parse --short HEAD)"
+ * </pre>
+ *
+ * Options (defaults in parentheses):
+ * <ul>
+ *   <li>--scenario: JSONL file or classpath: resource (classpath:loadtest/scenario.jsonl), see {@link RecordedRequest}</li>
+ *   <li>--base-url: run against an already running app instead of starting one on H2</li>
+ *   <li>--rate: open-loop arrivals per second; 0 runs closed-loop with --concurrency workers (0)</li>
+ *   <li>--concurrency (16), --max-in-flight for open loop (1000), --duration (30) and --warmup (5) seconds</li>
+ *   <li>--users: accounts registered and logged in for auth=user requests (20), --user-password</li>
+ *   <li>--admin-username / --admin-password: created automatically on the embedded app</li>
+ *   <li>--chain-latency-ms: delay of the stub chain node (20), --timeout-ms per request (10000)</li>
+ *   <li>--output: report path (target/loadtest/result.json), --label: free text stored in the report</li>
+ *   <li>--app.&lt;property&gt;: extra property for the embedded app</li>
+ *   <li>--dataset: small, medium or large synthetic dataset loaded into the embedded app after setup,
+ *   --dataset.&lt;field&gt; overrides a {@link com.blockchain.csr.dataset.DatasetSpec} field</li>
+ * </ul>
+ * Open-loop latencies are measured from the scheduled send time, so queueing inside the generator
+ * counts against the server instead of hiding it. Only HTTP statuses of 400 and above count as
+ * errors; endpoints that answer 200 with an error code in the body are not detected.
+ */
+public final class LoadTestRunner {
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final List<Session> users = new ArrayList<>();
+    private Session admin;
+
+    private LoadTestRunner(LoadTestOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(options.timeoutMs()))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        EmbeddedTarget embedded = null;
+        String baseUrl = options.baseUrl();
+        if (baseUrl == null) {
+            embedded = EmbeddedTarget.start(options);
+            baseUrl = embedded.baseUrl();
+        }
+        try {
+            new LoadTestRunner(options).run(baseUrl, embedded);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run(String baseUrl, EmbeddedTarget embedded) throws Exception {
+        List<RecordedRequest> scenario = RecordedRequest.load(options.scenario(), objectMapper);
+        List<RecordedRequest> setup = scenario.stream().filter(RecordedRequest::isSetup).toList();
+        List<RecordedRequest> load = scenario.stream().filter(request -> !request.isSetup()).toList();
+        if (load.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no load requests");
+        }
+
+        bootstrap(baseUrl);
+        for (RecordedRequest request : setup) {
+            HttpResponse<String> response = client.send(build(baseUrl, request, sessionFor(request)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                System.err.printf("Setup %s failed with %d: %s%n", request.name(), response.statusCode(), response.body());
+            }
+        }
+        // After setup, so the IDs the scenario hard-codes still point at the rows it created
+        if (embedded != null) {
+            embedded.loadDataset();
+        }
+
+        WeightedPicker picker = new WeightedPicker(load);
+        if (options.warmupSeconds() > 0) {
+            System.out.printf("Warming up for %ds%n", options.warmupSeconds());
+            drive(baseUrl, picker, new LatencyRecorder(), options.warmupSeconds());
+        }
+        System.out.printf("Measuring for %ds (%s)%n", options.durationSeconds(),
+                options.openLoop() ? "open loop, " + options.rate() + " req/s" : "closed loop, " + options.concurrency() + " workers");
+        LatencyRecorder recorder = new LatencyRecorder();
+        long started = System.nanoTime();
+        drive(baseUrl, picker, recorder, options.durationSeconds());
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        report(recorder, seconds, baseUrl);
+    }
+
+    /**
+     * Register (ignoring "already exists") and log in the user pool, and log in the admin
+     */
+    private void bootstrap(String baseUrl) throws IOException, InterruptedException {
+        admin = login(baseUrl, "/api/auth/admin/login", options.adminUsername(), options.adminPassword());
+        for (int i = 0; i < options.users(); i++) {
+            String username = "loadtest-user-" + i;
+            Map<String, Object> registration = Map.of("username", username, "password", options.userPassword());
+            client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(registration)))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            users.add(login(baseUrl, "/api/auth/login", username, options.userPassword()));
+        }
+        System.out.printf("Logged in admin and %d users%n", users.size());
+    }
+
+    private Session login(String baseUrl, String path, String username, String password) throws IOException, InterruptedException {
+        Map<String, Object> credentials = Map.of("username", username, "password", password);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(credentials)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonNode data = objectMapper.readTree(response.body()).path("data");
+        if (response.statusCode() != 200 || !data.hasNonNull("accessToken")) {
+            throw new IllegalStateException("Login of " + username + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return new Session(data.get("id").asInt(), data.get("accessToken").asText());
+    }
+
+    private Session sessionFor(RecordedRequest request) {
+        return switch (request.auth()) {
+            case "admin" -> admin;
+            case "none" -> null;
+            default -> users.isEmpty() ? admin : users.get(ThreadLocalRandom.current().nextInt(users.size()));
+        };
+    }
+
+    private HttpRequest build(String baseUrl, RecordedRequest request, Session session) {
+        Integer userId = session != null ? session.userId() : null;
+        String body = request.renderBody(userId);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.renderPath(userId)))
+                .timeout(Duration.ofMillis(options.timeoutMs()))
+                .method(request.method(), body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (session != null) {
+            builder.header("Authorization", "Bearer " + session.accessToken());
+        }
+        return builder.build();
+    }
+
+    private void drive(String baseUrl, WeightedPicker picker, LatencyRecorder recorder, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        if (options.openLoop()) {
+            openLoop(baseUrl, picker, recorder, deadline);
+        } else {
+            closedLoop(baseUrl, picker, recorder, deadline);
+        }
+    }
+
+    private void closedLoop(String baseUrl, WeightedPicker picker, LatencyRecorder recorder, long deadline) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    RecordedRequest request = picker.next();
+                    HttpRequest httpRequest = build(baseUrl, request, sessionFor(request));
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = 0;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    recorder.record(request.name(), System.nanoTime() - start, status);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(options.timeoutMs() + TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), TimeUnit.MILLISECONDS);
+    }
+
+    private void openLoop(String baseUrl, WeightedPicker picker, LatencyRecorder recorder, long deadline) throws InterruptedException {
+        long intervalNanos = (long) (1e9 / options.rate());
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        long next = System.nanoTime();
+        while (next < deadline) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final long scheduled = next;
+            next += intervalNanos;
+            if (!inFlight.tryAcquire()) {
+                recorder.drop();
+                continue;
+            }
+            RecordedRequest request = picker.next();
+            CompletableFuture<HttpResponse<Void>> response =
+                    client.sendAsync(build(baseUrl, request, sessionFor(request)), HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((result, error) -> {
+                recorder.record(request.name(), System.nanoTime() - scheduled, error == null ? result.statusCode() : 0);
+                inFlight.release();
+            });
+        }
+        // Let outstanding requests finish so their latencies are counted
+        if (inFlight.tryAcquire(options.maxInFlight(), options.timeoutMs(), TimeUnit.MILLISECONDS)) {
+            inFlight.release(options.maxInFlight());
+        }
+    }
+
+    private void report(LatencyRecorder recorder, double seconds, String baseUrl) throws IOException {
+        Map<String, LatencyRecorder.Summary> summaries = recorder.summarize(seconds);
+
+        System.out.printf("%n%-28s %8s %7s %9s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        summaries.forEach((name, s) -> System.out.printf("%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, s.count(), s.errors(), s.throughput(), s.p50Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+        if (recorder.dropped() > 0) {
+            System.out.printf("%d requests not sent: more than %d in flight%n", recorder.dropped(), options.maxInFlight());
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("scenario", options.scenario());
+        config.put("target", options.baseUrl() != null ? baseUrl : "embedded-h2");
+        config.put("mode", options.openLoop() ? "open" : "closed");
+        config.put("rate", options.rate());
+        config.put("concurrency", options.concurrency());
+        config.put("durationSeconds", options.durationSeconds());
+        config.put("warmupSeconds", options.warmupSeconds());
+        config.put("users", options.users());
+        config.put("dataset", options.dataset());
+        config.put("datasetOverrides", options.datasetOverrides());
+        config.put("chainLatencyMs", options.chainLatencyMs());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("label", options.label());
+        result.put("startedAt", Instant.now().minusMillis((long) (seconds * 1000)).toString());
+        result.put("measuredSeconds", seconds);
+        result.put("config", config);
+        result.put("dropped", recorder.dropped());
+        result.put("endpoints", summaries);
+
+        Path output = Path.of(options.output());
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), result);
+        System.out.printf("Report written to %s%n", output.toAbsolutePath());
+    }
+
+    private record Session(Integer userId, String accessToken) {
+    }
+
+    private static final class WeightedPicker {
+        private final List<RecordedRequest> requests;
+        private final int[] cumulative;
+
+        WeightedPicker(List<RecordedRequest> requests) {
+            this.requests = requests;
+            this.cumulative = new int[requests.size()];
+            int total = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                total += requests.get(i).weight();
+                cumulative[i] = total;
+            }
+        }
+
+        RecordedRequest next() {
+            int pick = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick < cumulative[i]) {
+                    return requests.get(i);
+                }
+            }
+            return requests.get(requests.size() - 1);
+        }
+    }
+}
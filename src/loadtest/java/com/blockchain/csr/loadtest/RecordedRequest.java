@@ -0,0 +1,111 @@
+package com.blockchain.csr.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One line of a scenario file:
+ * <pre>
+ * {"name":"listEvents","method":"GET","path":"/api/events?page=1","auth":"user","weight":5}
+ * {"phase":"setup","name":"createEvent","method":"POST","path":"/api/events","auth":"admin","body":{...}}
+ * </pre>
+ * Setup lines run once, in order, before the load; load lines are picked at random by weight.
+ * {@code auth} is user (a random bootstrapped user), admin or none. Paths and bodies may use
+ * {@code {{userId}}} (the acting user), {@code {{seq}}} (a run-wide counter),
+ * {@code {{rand:min:max}}} and {@code {{date:offsetDays}}} (yyyy-MM-dd).
+ */
+record RecordedRequest(String phase, String name, String method, String path, String body, String auth, int weight) {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{([a-zA-Z]+)(?::(-?\\d+))?(?::(-?\\d+))?}}");
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    static List<RecordedRequest> load(String location, ObjectMapper objectMapper) throws IOException {
+        List<RecordedRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(location), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#") || line.startsWith("//")) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.hasNonNull("path")) {
+                    throw new IllegalArgumentException("Scenario line " + lineNumber + " has no path");
+                }
+                String method = node.path("method").asText("GET").toUpperCase();
+                String path = node.get("path").asText();
+                JsonNode body = node.get("body");
+                requests.add(new RecordedRequest(
+                        node.path("phase").asText("load"),
+                        node.path("name").asText(method + " " + path.replaceAll("\\?.*", "")),
+                        method,
+                        path,
+                        body == null || body.isNull() ? null : objectMapper.writeValueAsString(body),
+                        node.path("auth").asText("user"),
+                        Math.max(1, node.path("weight").asInt(1))));
+            }
+        }
+        return requests;
+    }
+
+    private static InputStream open(String location) throws IOException {
+        if (location.startsWith("classpath:")) {
+            String resource = location.substring("classpath:".length());
+            InputStream in = RecordedRequest.class.getClassLoader().getResourceAsStream(resource);
+            if (in == null) {
+                throw new IOException("Scenario not found on classpath: " + resource);
+            }
+            return in;
+        }
+        return Files.newInputStream(Path.of(location));
+    }
+
+    boolean isSetup() {
+        return "setup".equalsIgnoreCase(phase);
+    }
+
+    String renderPath(Integer userId) {
+        return render(path, userId);
+    }
+
+    String renderBody(Integer userId) {
+        return body == null ? null : render(body, userId);
+    }
+
+    private static String render(String template, Integer userId) {
+        if (!template.contains("{{")) {
+            return template;
+        }
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            String value = switch (matcher.group(1)) {
+                case "userId" -> String.valueOf(userId);
+                case "seq" -> String.valueOf(SEQUENCE.incrementAndGet());
+                case "rand" -> String.valueOf(ThreadLocalRandom.current().nextLong(
+                        Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)) + 1));
+                case "date" -> LocalDate.now().plusDays(matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0).toString();
+                default -> throw new IllegalArgumentException("Unknown placeholder: " + matcher.group());
+            };
+            matcher.appendReplacement(out, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.blockchain.csr.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the chain node: answers single and batch submissions with generated tx IDs and
+ * reports every transaction as valid, after a fixed delay that models the chain round trip
+ */
+final class StubChainServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong txSequence = new AtomicLong();
+    private final long latencyMs;
+
+    private StubChainServer(long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-chain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/transactions/add", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, "tx-" + txSequence.incrementAndGet(), "text/plain");
+        });
+        server.createContext("/api/transactions/batch", exchange -> {
+            JsonNode batch = objectMapper.readTree(exchange.getRequestBody());
+            List<String> txIds = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                txIds.add("tx-" + txSequence.incrementAndGet());
+            }
+            respond(exchange, objectMapper.writeValueAsString(txIds), "application/json");
+        });
+        server.createContext("/api/blockchain/transactions/", exchange ->
+                respond(exchange, "{\"valid\":true}", "application/json"));
+    }
+
+    static StubChainServer start(long latencyMs) throws IOException {
+        StubChainServer stub = new StubChainServer(latencyMs);
+        stub.server.start();
+        return stub;
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void respond(HttpExchange exchange, String body, String contentType) throws IOException {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
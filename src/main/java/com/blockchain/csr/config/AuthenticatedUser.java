@@ -0,0 +1,61 @@
+package com.blockchain.csr.config;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal of an authenticated request. Carries the user ID so controllers and
+ * {@link SecurityUtils} never need to look the current user up again.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    private final Integer id;
+    private final String username;
+    // Only set when loaded for a password login; null for token-authenticated requests
+    private final String password;
+    // Role authority, e.g. ROLE_ADMIN
+    private final String role;
+
+    public AuthenticatedUser(Integer id, String username, String password, String role) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{id=" + id + ", username='" + username + "', role='" + role + "'}";
+    }
+}
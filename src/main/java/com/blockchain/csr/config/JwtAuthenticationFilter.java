@@ -1,7 +1,10 @@
 package com.blockchain.csr.config;
 
+import com.blockchain.csr.service.TokenRevocationService;
+import com.blockchain.csr.service.UserStatusCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,29 +26,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationService tokenRevocationService;
+
+    // Build the authentication from the signed claims and the user status cache instead of loading the user per request
+    @Value("${security.stateless-auth:true}")
+    private boolean statelessAuth;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        
         try {
-            username = jwtUtil.extractUsername(jwt);
+            // One verification per request (none for a recently seen token)
+            TokenClaims claims = jwtUtil.parseAccessToken(authHeader.substring(7));
+            if (claims != null && claims.getTokenId() != null && tokenRevocationService.isRevoked(claims.getTokenId())) {
+                log.debug("Rejecting revoked token of user: {}", claims.getUsername());
+                claims = null;
+            }
             
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (claims != null && claims.getUsername() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = statelessAuth ? fromClaims(claims) : userDetailsService.loadUserByUsername(claims.getUsername());
                 
-                if (jwtUtil.validateToken(jwt, userDetails) && jwtUtil.isAccessToken(jwt)) {
+                if (userDetails != null && claims.getUsername().equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -58,4 +68,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Build the principal from verified claims. The user status cache rejects deleted users and
+     * applies role changes made after the token was issued.
+     */
+    private UserDetails fromClaims(TokenClaims claims) {
+        UserStatusCache.UserStatus status = userStatusCache.get(claims.getUsername());
+        if (!status.exists()) {
+            log.debug("Rejecting token of unknown user: {}", claims.getUsername());
+            return null;
+        }
+        // The username now belongs to a different account than the one the token was issued to
+        if (claims.getUserId() != null && !claims.getUserId().equals(status.getId())) {
+            log.debug("Rejecting token of user {} issued for user ID {}", claims.getUsername(), claims.getUserId());
+            return null;
+        }
+        return new AuthenticatedUser(status.getId(), status.getUsername(), null, status.getAuthority());
+    }
+}
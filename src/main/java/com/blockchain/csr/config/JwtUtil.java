@@ -1,22 +1,38 @@
 package com.blockchain.csr.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class JwtUtil {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret:mySecretKey12345678901234567890123456789012345678901234567890}")
     private String secret;
 
@@ -26,24 +42,124 @@ public class JwtUtil {
     @Value("${jwt.refresh-token-expiration:604800000}") // 7 days in milliseconds
     private Long refreshTokenExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    // Key and parser are immutable and thread-safe, so they are built once
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Verified access tokens keyed by SHA-256 of the token; each entry expires with its token
+    private Cache<String, TokenClaims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenClaims claims, long currentTime) {
+                        long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
+
+    /**
+     * Verify a token once and read all its claims. Access tokens are remembered until they expire,
+     * so repeated requests with the same token skip signature verification.
+     *
+     * @param token the compact JWT
+     * @return the verified claims
+     * @throws JwtException if the signature is invalid, the token is malformed or expired
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public TokenClaims parseToken(String token) {
+        String key = tokenHash(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        TokenClaims tokenClaims = TokenClaims.builder()
+                .userId(claims.get("userId", Integer.class))
+                .username(claims.getSubject())
+                .tokenId(claims.getId())
+                .role(claims.get("role", String.class))
+                .type(claims.get("type", String.class))
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .build();
+        // Refresh tokens are rarely presented and long-lived, not worth keeping
+        if (tokenClaims.isAccessToken() && tokenClaims.getExpiration() != null) {
+            verifiedTokens.put(key, tokenClaims);
+        }
+        return tokenClaims;
+    }
+
+    /**
+     * Verify an access token
+     *
+     * @param token the compact JWT
+     * @return the verified claims, or null if the token is invalid, expired or not an access token
+     */
+    public TokenClaims parseAccessToken(String token) {
+        try {
+            TokenClaims claims = parseToken(token);
+            return claims.isAccessToken() ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Verify a refresh token
+     *
+     * @param token the compact JWT
+     * @return the verified claims, or null if the token is invalid, expired or not a refresh token
+     */
+    public TokenClaims parseRefreshToken(String token) {
+        try {
+            TokenClaims claims = parseToken(token);
+            return claims.isRefreshToken() ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).getUsername();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parseToken(token).getExpiration();
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return parseToken(token).getRole();
     }
 
     public String extractTokenType(String token) {
-        return extractClaim(token, claims -> claims.get("type", String.class));
+        return parseToken(token).getType();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -52,15 +168,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String generateAccessToken(UserDetails userDetails) {
@@ -69,6 +177,9 @@ public class JwtUtil {
                      userDetails.getAuthorities().iterator().next().getAuthority();
         claims.put("role", role);
         claims.put("type", "access");
+        if (userDetails instanceof AuthenticatedUser authenticatedUser) {
+            claims.put("userId", authenticatedUser.getId());
+        }
         return createToken(claims, userDetails.getUsername(), accessTokenExpiration);
     }
 
@@ -81,22 +192,22 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        TokenClaims claims = parseToken(token);
+        return (claims.getUsername().equals(userDetails.getUsername()) && !claims.isExpired());
     }
 
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            return !parseToken(token).isExpired();
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
             return false;
@@ -104,10 +215,27 @@ public class JwtUtil {
     }
 
     public Boolean isAccessToken(String token) {
-        return "access".equals(extractTokenType(token));
+        return parseToken(token).isAccessToken();
     }
 
     public Boolean isRefreshToken(String token) {
-        return "refresh".equals(extractTokenType(token));
+        return parseToken(token).isRefreshToken();
+    }
+
+    /**
+     * SHA-256 of a token (Base64, 44 chars), used to key tokens without storing them
+     *
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public static String tokenHash(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package com.blockchain.csr.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Collects {@link RequestQueryStats} for each request, reports them in the X-Query-Count /
+ * X-Query-Time-Ms response headers and logs requests that run more statements than
+ * {@code query-log.statement-budget}. Runs before the security filters so token checks are counted too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    private final QueryLogProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestQueryStats stats = RequestQueryStats.begin();
+        HttpServletResponse target = properties.isResponseHeaders() ? new HeaderWritingResponse(response, stats) : response;
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            RequestQueryStats.end();
+            if (target instanceof HeaderWritingResponse headerWriting) {
+                headerWriting.writeHeaders();
+            }
+            int budget = properties.getStatementBudget();
+            if (budget > 0 && stats.getStatements() > budget) {
+                log.warn("[查询超预算] method={} uri={} status={} queries={} dbMs={} slowQueries={} budget={}",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        stats.getStatements(), stats.getTotalMillis(), stats.getSlowStatements(), budget);
+            }
+        }
+    }
+
+    /**
+     * Adds the headers just before the body is first written, while they can still be set; statements
+     * run after that point (e.g. lazy loads during serialization) are in the log but not the headers
+     */
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+        private final RequestQueryStats stats;
+        private boolean written;
+
+        HeaderWritingResponse(HttpServletResponse response, RequestQueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void writeHeaders() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getStatements()));
+                setHeader(QUERY_TIME_HEADER, String.valueOf(stats.getTotalMillis()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.blockchain.csr.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Counts statements and their time for the current request and logs statements slower than
+ * {@code query-log.slow-threshold-ms} with a summary of the bound parameters (first parameter set of a batch).
+ * Parameter values are only logged with {@code query-log.log-parameter-values=true}; otherwise each parameter
+ * is shown as its type and length, e.g. {@code 1=String(60)}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryLogListener implements QueryExecutionListener {
+
+    // Multi-row INSERTs bind thousands of parameters; only the first ones are logged
+    private static final int MAX_LOGGED_PARAMETERS = 20;
+
+    private final QueryLogProperties properties;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.statementStarted();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        boolean slow = execInfo.getElapsedTime() >= properties.getSlowThresholdMs();
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.statementFinished(slow);
+        }
+        if (slow && log.isWarnEnabled()) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                log.warn("[慢查询] durationMs={} success={} batchSize={} sql={} params={}",
+                        execInfo.getElapsedTime(), execInfo.isSuccess(), execInfo.isBatch() ? execInfo.getBatchSize() : 0,
+                        truncate(queryInfo.getQuery(), properties.getMaxSqlLength()), parameters(queryInfo));
+            }
+        }
+    }
+
+    private String parameters(QueryInfo queryInfo) {
+        List<List<ParameterSetOperation>> parametersList = queryInfo.getParametersList();
+        if (parametersList.isEmpty()) {
+            return "[]";
+        }
+        List<ParameterSetOperation> operations = parametersList.get(0);
+        String first = operations.stream()
+                .sorted(Comparator.comparingInt(operation -> operation.getArgs()[0] instanceof Integer index ? index : Integer.MAX_VALUE))
+                .limit(MAX_LOGGED_PARAMETERS)
+                .map(this::parameter)
+                .collect(Collectors.joining(", ", "[", operations.size() > MAX_LOGGED_PARAMETERS
+                        ? ", ...(" + operations.size() + " parameters)]" : "]"));
+        return parametersList.size() > 1 ? first + " (+" + (parametersList.size() - 1) + " sets)" : first;
+    }
+
+    private String parameter(ParameterSetOperation operation) {
+        Object[] args = operation.getArgs();
+        if ("setNull".equals(operation.getMethod().getName()) || args.length < 2 || args[1] == null) {
+            return args[0] + "=NULL";
+        }
+        Object value = args[1];
+        if (!properties.isLogParameterValues()) {
+            return args[0] + "=" + shape(value);
+        }
+        String rendered = value instanceof CharSequence
+                ? "'" + truncate(value.toString(), properties.getMaxParameterLength()) + "'"
+                : value instanceof byte[] bytes ? "<" + bytes.length + " bytes>"
+                : truncate(String.valueOf(value), properties.getMaxParameterLength());
+        return args[0] + "=" + rendered;
+    }
+
+    private static String shape(Object value) {
+        String type = value.getClass().getSimpleName();
+        if (value instanceof CharSequence text) {
+            return type + "(" + text.length() + ")";
+        }
+        return value instanceof byte[] bytes ? type + "(" + bytes.length + ")" : type;
+    }
+
+    private static String truncate(String value, int max) {
+        return value.length() > max ? value.substring(0, max) + "...(" + value.length() + " chars)" : value;
+    }
+}
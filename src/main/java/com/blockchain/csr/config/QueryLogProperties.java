@@ -0,0 +1,50 @@
+package com.blockchain.csr.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the datasource proxy ({@link QueryLogListener}, {@link QueryCountFilter}), bound from {@code query-log.*}
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "query-log")
+public class QueryLogProperties {
+
+    /**
+     * Wrap the DataSource in the counting proxy; needs a restart to change
+     */
+    private boolean enabled = true;
+
+    /**
+     * Statements at least this slow are logged with their parameters
+     */
+    private long slowThresholdMs = 200;
+
+    /**
+     * Requests running more statements than this are logged as over budget (N+1 suspects); 0 disables the check
+     */
+    private int statementBudget = 30;
+
+    /**
+     * Add X-Query-Count and X-Query-Time-Ms to every response
+     */
+    private boolean responseHeaders = true;
+
+    /**
+     * Maximum length of the logged SQL
+     */
+    private int maxSqlLength = 2000;
+
+    /**
+     * Log the bound values of slow statements; off by default since they include password hashes,
+     * token hashes and jtis, in which case only the type and length of each parameter is logged
+     */
+    private boolean logParameterValues = false;
+
+    /**
+     * Maximum length of a single logged parameter value
+     */
+    private int maxParameterLength = 100;
+}
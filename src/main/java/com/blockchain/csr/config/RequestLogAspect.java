@@ -1,38 +1,184 @@
 package com.blockchain.csr.config;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.multipart.MultipartFile;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Logs controller calls as one key=value line with status and duration. Calls are sampled per
+ * controller/endpoint; slow and failed calls are always logged. Arguments are only serialized
+ * when a line is actually written, with sensitive fields redacted and long values truncated.
+ * The SQL statements run so far in the request and their time come from {@link RequestQueryStats}.
+ */
 @Aspect
 @Component
 public class RequestLogAspect {
     private static final Logger logger = LoggerFactory.getLogger(RequestLogAspect.class);
+    private static final String REDACTED = "***";
+
     private final ObjectMapper objectMapper;
+    private final RequestLogProperties properties;
+    private final Set<String> redactedFields;
+    // Resolved sample rate per controller method
+    private final Map<Method, Double> sampleRates = new ConcurrentHashMap<>();
 
-    public RequestLogAspect(ObjectMapper objectMapper) {
+    public RequestLogAspect(ObjectMapper objectMapper, RequestLogProperties properties) {
         this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.redactedFields = properties.getRedactedFields().stream()
+                .map(field -> field.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
     }
 
     @Around("execution(* com.blockchain.csr.controller..*.*(..))")
     public Object logRequest(ProceedingJoinPoint joinPoint) throws Throwable {
-        String className = joinPoint.getSignature().getDeclaringTypeName();
-        String methodName = joinPoint.getSignature().getName();
-        Object[] args = joinPoint.getArgs();
+        if (!properties.isEnabled() || !logger.isInfoEnabled()) {
+            return joinPoint.proceed();
+        }
 
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable failure = null;
         try {
-            String argsJson = objectMapper.writeValueAsString(args);
-            logger.info("[请求日志] 类名: {}, 方法: {}, 参数: {}", className, methodName, argsJson);
-        } catch (JsonProcessingException e) {
-            logger.warn("参数序列化失败: {}", e.getMessage());
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            int status = failure != null ? 500
+                    : result instanceof ResponseEntity<?> response ? response.getStatusCode().value() : 200;
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            String controller = signature.getDeclaringType().getSimpleName();
+            String method = signature.getName();
+
+            boolean always = failure != null || status >= 500 || durationMs >= properties.getSlowThresholdMs();
+            if (always || ThreadLocalRandom.current().nextDouble() < sampleRate(signature.getMethod(), controller, method)) {
+                // LazyArgs is only serialized when the line is formatted
+                LazyArgs args = new LazyArgs(signature.getParameterNames(), joinPoint.getArgs());
+                RequestQueryStats queries = RequestQueryStats.current();
+                Object queryCount = queries != null ? queries.getStatements() : "-";
+                Object dbMs = queries != null ? queries.getTotalMillis() : "-";
+                if (failure != null) {
+                    logger.warn("[请求日志] controller={} method={} status={} durationMs={} queries={} dbMs={} error={} args={}",
+                            controller, method, status, durationMs, queryCount, dbMs, failure.getClass().getSimpleName(), args);
+                } else {
+                    logger.info("[请求日志] controller={} method={} status={} durationMs={} queries={} dbMs={} sampled={} args={}",
+                            controller, method, status, durationMs, queryCount, dbMs, !always, args);
+                }
+            }
         }
+    }
 
-        return joinPoint.proceed();
+    private double sampleRate(Method javaMethod, String controller, String method) {
+        return sampleRates.computeIfAbsent(javaMethod, key -> {
+            Map<String, Double> rates = properties.getSampleRates();
+            Double rate = rates.get(controller + "." + method);
+            if (rate == null) {
+                rate = rates.get(controller);
+            }
+            return rate != null ? rate : properties.getDefaultSampleRate();
+        });
+    }
+
+    private String render(String[] names, Object[] args) {
+        // Keyed by parameter name when compiled with -parameters, so scalar arguments can be redacted too
+        ObjectNode rendered = objectMapper.createObjectNode();
+        for (int i = 0; i < args.length; i++) {
+            String name = names != null && i < names.length ? names[i] : "arg" + i;
+            rendered.set(name, redactedFields.contains(name.toLowerCase(Locale.ROOT)) ? TextNode.valueOf(REDACTED) : renderArg(args[i]));
+        }
+        String json = rendered.toString();
+        int max = properties.getMaxArgsLength();
+        return json.length() > max ? json.substring(0, max) + "...(" + json.length() + " chars)" : json;
+    }
+
+    private JsonNode renderArg(Object arg) {
+        if (arg == null) {
+            return objectMapper.nullNode();
+        }
+        if (arg instanceof MultipartFile file) {
+            return TextNode.valueOf("<file " + file.getOriginalFilename() + ", " + file.getSize() + " bytes>");
+        }
+        if (arg instanceof ServletRequest || arg instanceof ServletResponse || arg instanceof InputStream
+                || arg instanceof BindingResult || arg instanceof Principal) {
+            return TextNode.valueOf("<" + arg.getClass().getSimpleName() + ">");
+        }
+        try {
+            return sanitize(objectMapper.valueToTree(arg));
+        } catch (IllegalArgumentException e) {
+            return TextNode.valueOf("<" + arg.getClass().getSimpleName() + ": not serializable>");
+        }
+    }
+
+    private JsonNode sanitize(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (redactedFields.contains(field.getKey().toLowerCase(Locale.ROOT))) {
+                    field.setValue(TextNode.valueOf(REDACTED));
+                } else {
+                    field.setValue(sanitize(field.getValue()));
+                }
+            }
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, sanitize(array.get(i)));
+            }
+        } else if (node.isTextual()) {
+            String text = node.textValue();
+            int max = properties.getMaxValueLength();
+            if (text.length() > max) {
+                return TextNode.valueOf(text.substring(0, max) + "...(" + text.length() + " chars)");
+            }
+        }
+        return node;
+    }
+
+    private final class LazyArgs {
+        private final String[] names;
+        private final Object[] args;
+
+        private LazyArgs(String[] names, Object[] args) {
+            this.names = names;
+            this.args = args;
+        }
+
+        @Override
+        public String toString() {
+            try {
+                return render(names, args);
+            } catch (RuntimeException e) {
+                return "<args not serializable: " + e.getMessage() + ">";
+            }
+        }
     }
-}
\ No newline at end of file
+}
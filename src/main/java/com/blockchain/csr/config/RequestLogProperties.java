@@ -0,0 +1,54 @@
+package com.blockchain.csr.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of {@link RequestLogAspect}, bound from {@code request-log.*}
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "request-log")
+public class RequestLogProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Fraction of requests logged when no specific rate matches (0.0 - 1.0)
+     */
+    private double defaultSampleRate = 1.0;
+
+    /**
+     * Rates by controller ("PhotoController") or endpoint ("PhotoController.getPhoto"); the endpoint wins
+     */
+    private Map<String, Double> sampleRates = new HashMap<>();
+
+    /**
+     * Requests at least this slow, and failed requests, are always logged
+     */
+    private long slowThresholdMs = 1000;
+
+    /**
+     * Maximum length of the serialized arguments
+     */
+    private int maxArgsLength = 2000;
+
+    /**
+     * Maximum length of a single string value inside the arguments (e.g. base64 content)
+     */
+    private int maxValueLength = 200;
+
+    /**
+     * Field names whose values are replaced with "***" (case-insensitive)
+     */
+    private Set<String> redactedFields = new HashSet<>(List.of(
+            "password", "oldPassword", "newPassword", "confirmPassword",
+            "token", "accessToken", "refreshToken", "secret", "authorization"));
+}
@@ -0,0 +1,63 @@
+package com.blockchain.csr.config;
+
+/**
+ * Statements run by the current request thread, filled by {@link QueryLogListener} between
+ * {@link #begin()} and {@link #end()} in {@link QueryCountFilter}. Queries of other threads
+ * (outbox, schedulers) are not attributed to any request.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int slowStatements;
+    private long totalNanos;
+    private long startedAt;
+
+    private RequestQueryStats() {
+    }
+
+    static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the stats of the request running on this thread, or null outside a request
+     */
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    void statementStarted() {
+        startedAt = System.nanoTime();
+    }
+
+    void statementFinished(boolean slow) {
+        statements++;
+        if (startedAt != 0) {
+            totalNanos += System.nanoTime() - startedAt;
+            startedAt = 0;
+        }
+        if (slow) {
+            slowStatements++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getSlowStatements() {
+        return slowStatements;
+    }
+
+    public long getTotalMillis() {
+        return totalNanos / 1_000_000;
+    }
+}
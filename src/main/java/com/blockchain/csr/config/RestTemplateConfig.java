@@ -1,22 +1,93 @@
 package com.blockchain.csr.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * RestTemplate配置类
- * 用于配置HTTP客户端
+ * 区块链API使用连接池 + keep-alive 的 HTTP 客户端，并通过 Micrometer 暴露连接池指标
  */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${blockchain.http.max-total:50}")
+    private int maxTotal;
+
+    @Value("${blockchain.http.max-per-route:20}")
+    private int maxPerRoute;
+
+    @Value("${blockchain.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${blockchain.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${blockchain.http.connection-request-timeout-ms:2000}")
+    private long connectionRequestTimeoutMs;
+
+    @Value("${blockchain.http.idle-evict-seconds:30}")
+    private long idleEvictSeconds;
+
+    @Value("${blockchain.http.time-to-live-seconds:300}")
+    private long timeToLiveSeconds;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager blockchainConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))   // 连接超时
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))       // 读取超时
+                        .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))           // 复用前校验空闲连接
+                        .build())
+                .build();
+
+        // 连接池指标：租用中、等待中、空闲可用、上限
+        Gauge.builder("blockchain.http.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("Connections currently leased to requests")
+                .register(meterRegistry);
+        Gauge.builder("blockchain.http.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .description("Requests waiting for a connection")
+                .register(meterRegistry);
+        Gauge.builder("blockchain.http.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .description("Idle connections ready for reuse")
+                .register(meterRegistry);
+        Gauge.builder("blockchain.http.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .description("Maximum connections in the pool")
+                .register(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient blockchainHttpClient(PoolingHttpClientConnectionManager blockchainConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(blockchainConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs)) // 等待连接池超时
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000); // 连接超时5秒
-        factory.setReadTimeout(10000);   // 读取超时10秒
-        return new RestTemplate(factory);
+    public RestTemplate blockchainRestTemplate(CloseableHttpClient blockchainHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(blockchainHttpClient));
     }
-} 
\ No newline at end of file
+}
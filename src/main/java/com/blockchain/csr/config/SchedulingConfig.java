@@ -0,0 +1,12 @@
+package com.blockchain.csr.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (stats rebuild etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -43,6 +43,8 @@ public class SecurityConfig {
                     .requestMatchers("/api/auth/register/admin").hasRole("ADMIN")
                     .requestMatchers("/testAuth", "/profile", "/user/test").authenticated()
                     .requestMatchers("/admin/**").hasRole("ADMIN")
+                    .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                    .requestMatchers("/actuator/**").hasRole("ADMIN")
                     .requestMatchers("/api/users/{id}/activities").authenticated()
                     .requestMatchers("/api/activities/**").authenticated()
                     .anyRequest().authenticated()
@@ -79,6 +81,9 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "HEAD"));
         // Allow all headers
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Let browsers read the pagination total of list endpoints and the per-request query statistics
+        configuration.setExposedHeaders(Arrays.asList("X-Total-Count",
+                QueryCountFilter.QUERY_COUNT_HEADER, QueryCountFilter.QUERY_TIME_HEADER));
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
         // Cache preflight requests for 1 hour
@@ -7,6 +7,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Collection;
 
@@ -17,6 +19,8 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class SecurityUtils {
 
+    private static final String CURRENT_USER_ID_ATTRIBUTE = SecurityUtils.class.getName() + ".currentUserId";
+
     private final UserRepository userRepository;
 
     /**
@@ -88,32 +92,54 @@ public class SecurityUtils {
                !"anonymousUser".equals(authentication.getName());
     }
 
+    /**
+     * Get the current authenticated principal, or null if the request is anonymous
+     * or was authenticated some other way (e.g. mock users in tests)
+     */
+    public static AuthenticatedUser getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return null;
+    }
+
     /**
      * Get the current authenticated user's ID
      */
     public Integer getCurrentUserId() {
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser != null) {
+            return currentUser.getId();
+        }
+
         String currentUsername = getCurrentUsername();
         if (currentUsername == null) {
             return null;
         }
         
-        return userRepository.findByUsername(currentUsername)
+        // Principal without an ID: look it up once per request
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(CURRENT_USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Integer id) {
+            return id;
+        }
+        Integer userId = userRepository.findByUsername(currentUsername)
                 .map(user -> user.getId())
                 .orElse(null);
+        if (attributes != null && userId != null) {
+            attributes.setAttribute(CURRENT_USER_ID_ATTRIBUTE, userId, RequestAttributes.SCOPE_REQUEST);
+        }
+        return userId;
     }
 
     /**
      * Check if the current user is the user with the specified ID
      */
     public boolean isCurrentUser(Integer userId) {
-        String currentUsername = getCurrentUsername();
-        if (currentUsername == null || userId == null) {
+        if (userId == null) {
             return false;
         }
-        
-        return userRepository.findById(userId)
-                .map(user -> currentUsername.equals(user.getUsername()))
-                .orElse(false);
+        return userId.equals(getCurrentUserId());
     }
 
     /**
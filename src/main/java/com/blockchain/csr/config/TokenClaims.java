@@ -0,0 +1,35 @@
+package com.blockchain.csr.config;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Verified claims of a JWT, read once per token. Immutable so it can be shared through the token cache.
+ */
+@Getter
+@Builder
+public class TokenClaims {
+    // Absent in tokens issued before the claim existed
+    private final Integer userId;
+    private final String username;
+    // jti, used to revoke the token before it expires
+    private final String tokenId;
+    private final String role;
+    private final String type;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public boolean isAccessToken() {
+        return "access".equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -5,8 +5,10 @@ import com.blockchain.csr.model.dto.ActivityResponseDto;
 import com.blockchain.csr.model.dto.ActivitySignupRequest;
 import com.blockchain.csr.model.mapper.ActivityMapper;
 import com.blockchain.csr.service.ActivityService;
+import com.blockchain.csr.service.PhotoThumbnailService;
 import com.blockchain.csr.config.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +25,8 @@ import java.util.List;
 @RequestMapping("/api/activities")
 public class ActivityController {
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     @Autowired
     private ActivityService activityService;
 
@@ -32,18 +36,31 @@ public class ActivityController {
     @Autowired
     private SecurityUtils securityUtils;
 
+    @Autowired
+    private PhotoThumbnailService photoThumbnailService;
+
     // 获取活动列表
     @GetMapping
     public ResponseEntity<BaseResponse<List<ActivityResponseDto>>> getActivities(
             @RequestParam(required = false) Integer eventId,
             @RequestParam(required = false) Integer userId,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer pageSize) {
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Integer imageWidth) {
         
-        List<ActivityResponseDto> activities = activityService.getActivitiesWithUserDetails(
+        Page<ActivityResponseDto> activities = activityService.getActivitiesWithUserDetails(
                 eventId, userId, page, pageSize);
+        if (imageWidth != null) {
+            activities.getContent().forEach(dto -> {
+                dto.setImage1(photoThumbnailService.thumbnailUrl(dto.getImage1(), imageWidth));
+                dto.setImage2(photoThumbnailService.thumbnailUrl(dto.getImage2(), imageWidth));
+            });
+        }
         
-        return ResponseEntity.ok(BaseResponse.success(activities));
+        // Body stays a plain list for compatibility; the total count travels in a header
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(activities.getTotalElements()))
+                .body(BaseResponse.success(activities.getContent()));
     }
 
     // 获取活动详情
@@ -80,8 +97,9 @@ public class ActivityController {
         if (existingActivity == null) {
             return ResponseEntity.badRequest().body(BaseResponse.error("活动不存在"));
         }
+        Integer previousEventId = existingActivity.getEventId();
         activityMapper.updateEntityFromDto(dto, existingActivity);
-        activityService.updateActivity(existingActivity);
+        activityService.updateActivity(existingActivity, previousEventId);
         return ResponseEntity.ok(BaseResponse.success("活动更新成功"));
     }
 
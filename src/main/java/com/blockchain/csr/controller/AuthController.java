@@ -1,6 +1,7 @@
 package com.blockchain.csr.controller;
 
 import com.blockchain.csr.config.JwtUtil;
+import com.blockchain.csr.config.TokenClaims;
 import com.blockchain.csr.model.dto.AuthRequest;
 import com.blockchain.csr.model.dto.AuthResponse;
 import com.blockchain.csr.model.dto.BaseResponse;
@@ -8,6 +9,7 @@ import com.blockchain.csr.model.dto.RefreshTokenRequest;
 import com.blockchain.csr.model.dto.RefreshTokenResponse;
 import com.blockchain.csr.model.entity.User;
 import com.blockchain.csr.service.RefreshTokenService;
+import com.blockchain.csr.service.TokenRevocationService;
 import com.blockchain.csr.service.UserService;
 import com.blockchain.csr.service.Impl.UserServiceImpl;
 import lombok.RequiredArgsConstructor;
@@ -16,11 +18,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -37,6 +41,7 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
     private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register")
     public ResponseEntity<BaseResponse<Object>> register(@Valid @RequestBody AuthRequest request) {
@@ -80,10 +85,11 @@ public class AuthController {
 
     private ResponseEntity<BaseResponse<AuthResponse>> generateAuthResponse(AuthRequest request, User user) {
         try {
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
             );
-            UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
+            // The authenticated principal already carries the user ID and role
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             String accessToken = jwtUtil.generateAccessToken(userDetails);
             String refreshToken = jwtUtil.generateRefreshToken(userDetails);
 
@@ -108,10 +114,18 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<BaseResponse<Object>> logout(@RequestBody RefreshTokenRequest request) {
+    public ResponseEntity<BaseResponse<Object>> logout(@RequestBody RefreshTokenRequest request,
+                                                       @RequestHeader(value = "Authorization", required = false) String authorization) {
         try {
+            // Revoke the access token too, so it stops working before it expires
+            if (authorization != null && authorization.startsWith("Bearer ")) {
+                TokenClaims accessClaims = jwtUtil.parseAccessToken(authorization.substring(7));
+                if (accessClaims != null) {
+                    tokenRevocationService.revoke(accessClaims.getTokenId(), accessClaims.getExpiration());
+                }
+            }
             String refreshToken = request.getRefreshToken();
-            if (refreshToken != null && jwtUtil.validateToken(refreshToken) && jwtUtil.isRefreshToken(refreshToken)) {
+            if (refreshToken != null && jwtUtil.parseRefreshToken(refreshToken) != null) {
                 refreshTokenService.removeRefreshToken(refreshToken);
             }
             return ResponseEntity.ok(BaseResponse.success("Logged out successfully"));
@@ -126,7 +140,8 @@ public class AuthController {
         try {
             String refreshToken = request.getRefreshToken();
             
-            if (refreshToken == null || !jwtUtil.validateToken(refreshToken) || !jwtUtil.isRefreshToken(refreshToken)) {
+            TokenClaims claims = refreshToken == null ? null : jwtUtil.parseRefreshToken(refreshToken);
+            if (claims == null) {
                 return ResponseEntity.status(401).body(BaseResponse.unauthorized("Invalid refresh token"));
             }
             
@@ -134,8 +149,7 @@ public class AuthController {
                 return ResponseEntity.status(401).body(BaseResponse.unauthorized("Refresh token not found or expired"));
             }
             
-            String username = jwtUtil.extractUsername(refreshToken);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getUsername());
             String newAccessToken = jwtUtil.generateAccessToken(userDetails);
             
             RefreshTokenResponse response = RefreshTokenResponse.builder()
@@ -1,24 +1,26 @@
 package com.blockchain.csr.controller;
 
 import com.blockchain.csr.model.dto.DonationDetailDTO;
-import com.blockchain.csr.model.entity.UserActivity;
+import com.blockchain.csr.model.dto.BaseResponse;
+import com.blockchain.csr.model.dto.ChainReprocessProgress;
+import com.blockchain.csr.model.dto.ChainVerifyRequest;
+import com.blockchain.csr.model.dto.ChainVerifyResponse;
+import com.blockchain.csr.model.enums.ChainVerification;
+import com.blockchain.csr.service.BlockchainCircuitBreaker;
 import com.blockchain.csr.service.BlockchainService;
+import com.blockchain.csr.service.BlockchainVerificationCache;
+import com.blockchain.csr.service.ChainOutboxService;
+import com.blockchain.csr.service.ChainReprocessService;
 import com.blockchain.csr.service.UserActivityService;
-import com.blockchain.csr.repository.UserActivityRepository;
-import com.blockchain.csr.repository.ActivityRepository;
-import com.blockchain.csr.model.entity.Activity;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
-
-import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,10 +33,44 @@ import java.util.Map;
 public class BlockchainController {
 
     private final BlockchainService blockchainService;
-    private final UserActivityRepository userActivityRepository;
-    private final ActivityRepository activityRepository;
     private final UserActivityService userActivityService;
-    private final ObjectMapper objectMapper;
+    private final ChainOutboxService chainOutboxService;
+    private final BlockchainCircuitBreaker blockchainCircuitBreaker;
+    private final BlockchainVerificationCache blockchainVerificationCache;
+    private final ChainReprocessService chainReprocessService;
+
+    /**
+     * 查看区块链提交队列各状态数量
+     */
+    @GetMapping("/outbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<Map<String, Long>>> getOutboxStatus() {
+        return ResponseEntity.ok(BaseResponse.success(chainOutboxService.countByStatus()));
+    }
+
+    /**
+     * 重新排队所有失败的区块链提交
+     */
+    @PostMapping("/outbox/retry")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<Map<String, Integer>>> retryFailedOutbox() {
+        int requeued = chainOutboxService.requeueFailed();
+        log.info("Admin re-queued {} failed chain submissions", requeued);
+        return ResponseEntity.ok(BaseResponse.success(Map.of("requeued", requeued)));
+    }
+
+    /**
+     * 批量验证区块链交易（已缓存的结果直接返回，未命中的并发验证）
+     */
+    @PostMapping("/verify")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<ChainVerifyResponse>> verifyTransactions(@Valid @RequestBody ChainVerifyRequest request) {
+        try {
+            return ResponseEntity.ok(BaseResponse.success(blockchainVerificationCache.verifyAll(request.getChainIds())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(BaseResponse.error(e.getMessage()));
+        }
+    }
 
     /**
      * 测试创建捐赠交易
@@ -81,12 +117,13 @@ public class BlockchainController {
         try {
             log.info("Testing blockchain transaction verification - chainId: {}", chainId);
             
-            boolean isValid = blockchainService.verifyTransaction(chainId);
+            ChainVerification result = blockchainVerificationCache.verify(chainId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("chainId", chainId);
-            response.put("valid", isValid);
+            response.put("valid", result == ChainVerification.VALID);
+            response.put("result", result);
             response.put("message", "Transaction verification completed");
             
             return ResponseEntity.ok(response);
@@ -103,7 +140,7 @@ public class BlockchainController {
     }
 
     /**
-     * 获取区块链服务状态
+     * 获取区块链服务状态（包含熔断器与并发隔离状态）
      */
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getBlockchainServiceStatus() {
@@ -111,12 +148,27 @@ public class BlockchainController {
         try {
             log.info("Checking blockchain service status");
             
+            BlockchainCircuitBreaker.State state = blockchainCircuitBreaker.getState();
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("status", "available");
-            response.put("message", "Blockchain service is running");
+            response.put("circuitBreaker", blockchainCircuitBreaker.snapshot());
             response.put("timestamp", System.currentTimeMillis());
             
+            switch (state) {
+                case OPEN -> {
+                    response.put("status", "unavailable");
+                    response.put("message", "Blockchain circuit breaker is open, calls fail fast");
+                    return ResponseEntity.status(503).body(response);
+                }
+                case HALF_OPEN -> {
+                    response.put("status", "recovering");
+                    response.put("message", "Blockchain circuit breaker is probing the chain node");
+                }
+                default -> {
+                    response.put("status", "available");
+                    response.put("message", "Blockchain service is running");
+                }
+            }
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -133,158 +185,46 @@ public class BlockchainController {
     }
     
     /**
-     * 处理没有chainId的用户活动记录，生成chainId并更新记录
+     * 处理没有chainId的用户活动记录（兼容旧接口，启动后台补链任务）
      */
     @PostMapping("/process-missing-chainid")
-    public ResponseEntity<Map<String, Object>> processMissingChainIdRecords() {
-        try {
-            log.info("Processing user activities without chainId in detail");
-            
-            // 查询符合条件的用户活动记录
-            List<UserActivity> userActivities = userActivityRepository.findWithDetailNoChainInDetailAndTemplateNot2();
-            log.info("Found {} user activities from initial query", userActivities.size());
-            
-            // 过滤掉detail中包含chainId的记录
-            List<UserActivity> filteredActivities = userActivities.stream()
-                    .filter(ua -> {
-                        try {
-                            // 检查detail中是否包含chainId键值对
-                            Serializable detailObj = ua.getDetail();
-                            if (detailObj == null) {
-                                log.debug("UserActivity ID: {} has null detail", ua.getId());
-                                return false;
-                            }
-                            
-                            // 将detail对象转换为JSON字符串
-                            String detailStr = objectMapper.writeValueAsString(detailObj);
-                            log.debug("UserActivity ID: {}, raw detail: {}", ua.getId(), detailStr);
-                            
-                            // 尝试解析detail为Map
-                            Map<String, Object> detailMap = objectMapper.readValue(detailStr, new TypeReference<Map<String, Object>>() {});
-                            boolean containsChainId = detailMap.containsKey("chainId") && detailMap.get("chainId") != null;
-                            log.debug("UserActivity ID: {}, contains chainId in detail: {}", ua.getId(), containsChainId);
-                            return !containsChainId;
-                        } catch (Exception e) {
-                            log.warn("Error parsing detail for user activity ID: {}: {}", ua.getId(), e.getMessage());
-                            // 如果解析失败，假设它不包含有效的chainId
-                            return true;
-                        }
-                    })
-                    .toList();
-            
-            log.info("Found {} user activities after filtering out those with chainId in detail", filteredActivities.size());
-            
-            int processedCount = 0;
-            // 循环处理每条记录
-            for (UserActivity userActivity : filteredActivities) {
-                try {
-                    log.debug("Processing user activity ID: {}", userActivity.getId());
-                    
-                    // 获取对应的活动信息
-                    Activity activity = activityRepository.findById(userActivity.getActivityId()).orElse(null);
-                    if (activity == null) {
-                        log.warn("Activity not found for user activity ID: {}", userActivity.getId());
-                        continue;
-                    }
-                    
-                    // 如果template_id等于2则跳过
-                    if (activity.getTemplateId() != null && activity.getTemplateId() == 2) {
-                        log.debug("Skipping user activity ID: {} as activity template_id is 2", userActivity.getId());
-                        continue;
-                    }
-                    
-                    // 解析detail获取comment
-                    String comment = null;
-                    try {
-                        Serializable detailObj = userActivity.getDetail();
-                        String detailStr = objectMapper.writeValueAsString(detailObj);
-                        Map<String, Object> detailMap = objectMapper.readValue(detailStr, new TypeReference<Map<String, Object>>() {});
-                        if (detailMap.containsKey("comment") && detailMap.get("comment") != null) {
-                            comment = detailMap.get("comment").toString();
-                        }
-                        log.debug("UserActivity ID: {}, extracted comment: {}", userActivity.getId(), comment);
-                    } catch (Exception e) {
-                        log.warn("Error parsing detail for comment extraction for user activity ID: {}: {}", userActivity.getId(), e.getMessage());
-                    }
-                    
-                    // 如果没有comment字段则跳过
-                    if (comment == null) {
-                        log.info("Skipping user activity ID: {} as it does not contain comment field", userActivity.getId());
-                        continue;
-                    }
-                    
-                    // 创建捐赠详情DTO，将duration作为amount
-                    DonationDetailDTO donationDetailDTO = new DonationDetailDTO();
-                    // 检查detail中是否已经有amount字段，如果有则使用它，否则使用duration
-                    BigDecimal amount = null;
-                    try {
-                        Serializable detailObj = userActivity.getDetail();
-                        String detailStr = objectMapper.writeValueAsString(detailObj);
-                        Map<String, Object> detailMap = objectMapper.readValue(detailStr, new TypeReference<Map<String, Object>>() {});
-                        if (detailMap.containsKey("amount") && detailMap.get("amount") != null) {
-                            Object amountObj = detailMap.get("amount");
-                            if (amountObj instanceof Number) {
-                                amount = BigDecimal.valueOf(((Number) amountObj).doubleValue());
-                            } else {
-                                amount = new BigDecimal(amountObj.toString());
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("Error parsing amount from detail for user activity ID: {}: {}", userActivity.getId(), e.getMessage());
-                    }
-                    
-                    // 如果detail中没有amount，则使用duration
-                    if (amount == null) {
-                        amount = BigDecimal.valueOf(activity.getDuration());
-                        log.debug("Using duration as amount for user activity ID: {}, amount: {}", userActivity.getId(), amount);
-                    }
-                    
-                    donationDetailDTO.setAmount(amount);
-                    donationDetailDTO.setComment(comment);
-                    
-                    // 调用区块链服务生成chainId
-                    String chainId = blockchainService.createDonationTransaction(
-                            userActivity.getUserId(), 
-                            donationDetailDTO);
-                    
-                    // 更新detail，将chainId加入detail中
-                    try {
-                        Serializable detailObj = userActivity.getDetail();
-                        String detailStr = objectMapper.writeValueAsString(detailObj);
-                        Map<String, Object> detailMap = objectMapper.readValue(detailStr, new TypeReference<Map<String, Object>>() {});
-                        detailMap.put("chainId", chainId);
-                        
-                        // 更新userActivity记录
-//                        userActivity.setChainId(chainId);
-                        userActivity.setDetail((java.io.Serializable) detailMap);
-                        userActivityRepository.save(userActivity);
-                        
-                        processedCount++;
-                        log.info("Processed user activity ID: {} with chainId: {}", userActivity.getId(), chainId);
-                    } catch (Exception e) {
-                        log.error("Error updating user activity detail for ID: {}: {}", userActivity.getId(), e.getMessage(), e);
-                    }
-                } catch (Exception e) {
-                    log.error("Error processing user activity ID: {}: {}", userActivity.getId(), e.getMessage(), e);
-                }
-            }
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("processedCount", processedCount);
-            response.put("initialCount", userActivities.size());
-            response.put("filteredCount", filteredActivities.size());
-            response.put("message", "Successfully processed " + processedCount + " records");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error processing user activities without chainId: {}", e.getMessage(), e);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            
-            return ResponseEntity.badRequest().body(response);
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<ChainReprocessProgress>> processMissingChainIdRecords() {
+        return startChainReprocess();
+    }
+
+    /**
+     * 启动补链任务：为缺少chainId的用户活动记录排队提交到区块链
+     */
+    @PostMapping("/reprocess")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<ChainReprocessProgress>> startChainReprocess() {
+        return ResponseEntity.ok(BaseResponse.success(chainReprocessService.start()));
+    }
+
+    /**
+     * 查看补链任务进度
+     */
+    @GetMapping("/reprocess")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<ChainReprocessProgress>> getChainReprocessProgress() {
+        ChainReprocessProgress progress = chainReprocessService.getProgress();
+        if (progress == null) {
+            return ResponseEntity.status(404).body(BaseResponse.notFound("No reprocessing job has run yet"));
+        }
+        return ResponseEntity.ok(BaseResponse.success(progress));
+    }
+
+    /**
+     * 取消正在运行的补链任务
+     */
+    @PostMapping("/reprocess/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<ChainReprocessProgress>> cancelChainReprocess() {
+        ChainReprocessProgress progress = chainReprocessService.cancel();
+        if (progress == null) {
+            return ResponseEntity.status(404).body(BaseResponse.notFound("No reprocessing job is running"));
         }
+        return ResponseEntity.ok(BaseResponse.success(progress));
     }
-}
\ No newline at end of file
+}
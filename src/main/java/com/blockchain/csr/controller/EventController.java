@@ -7,7 +7,8 @@ import com.blockchain.csr.model.enums.ActivityStatus;
 import com.blockchain.csr.repository.EventRepository;
 import com.blockchain.csr.repository.ActivityRepository;
 import com.blockchain.csr.service.EventService;
-import com.blockchain.csr.service.ActivityService;
+import com.blockchain.csr.service.PhotoThumbnailService;
+import com.blockchain.csr.service.StatsCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,6 +26,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -40,61 +42,17 @@ public class EventController {
     private final EventRepository eventRepository;
     private final ActivityRepository activityRepository;
     private final EventService eventService;
-    private final ActivityService activityService;
+    private final StatsCache statsCache;
+    private final PhotoThumbnailService photoThumbnailService;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-    /**
-     * Calculate activity status based on current time vs start/end times
-     * 
-     * @param startTime the activity start time
-     * @param endTime the activity end time
-     * @return the calculated status string
-     */
-    private String calculateActivityStatus(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
-            return ActivityStatus.NOT_STARTED.getValue();
-        }
-        
-        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
-        
-        if (now.isBefore(startTime)) {
-            return ActivityStatus.NOT_STARTED.getValue();
-        } else if (now.isAfter(endTime)) {
-            return ActivityStatus.FINISHED.getValue();
-        } else {
-            return ActivityStatus.IN_PROGRESS.getValue();
-        }
-    }
-
-    /**
-     * Calculate event status based on current time vs start/end times
-     * 
-     * @param startTime the event start time
-     * @param endTime the event end time
-     * @return the calculated status string
-     */
-    private String calculateEventStatus(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
-            return "NOT_STARTED";
-        }
-        
-        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
-        
-        if (now.isBefore(startTime)) {
-            return "NOT_STARTED";
-        } else if (now.isAfter(endTime)) {
-            return "FINISHED";
-        } else {
-            return "IN_PROGRESS";
-        }
-    }
-
     @GetMapping
     public ResponseEntity<BaseResponse<EventListResponse>> getEvents(
             @RequestParam(value = "page", required = false, defaultValue = "1") Integer page,
             @RequestParam(value = "pageSize", required = false, defaultValue = "10") Integer pageSize,
-            @RequestParam(value = "eventName", required = false) String eventName
+            @RequestParam(value = "eventName", required = false) String eventName,
+            @RequestParam(value = "imageWidth", required = false) Integer imageWidth
     ) {
         Pageable pageable = PageRequest.of(page - 1, pageSize);
         Page<Event> eventPage;
@@ -106,22 +64,31 @@ public class EventController {
             eventPage = eventRepository.findAll(pageable);
         }
         
+        // Load activities and aggregate totals for the whole page at once instead of per event
+        List<Integer> eventIds = eventPage.getContent().stream()
+                .map(Event::getId)
+                .collect(Collectors.toList());
+        Map<Integer, List<Activity>> activitiesByEvent = eventService.getActivitiesByEventIds(eventIds);
+        Map<Integer, EventStatsDto> statsByEvent = statsCache.getEventStats(eventIds);
+
         List<EventWithActivitiesDto> eventList = eventPage.getContent().stream().map(event -> {
-            List<ActivityDto> activities = activityRepository.findByEventId(event.getId()).stream().map(activity -> {
+            EventStatsDto eventStats = statsByEvent.get(event.getId());
+            List<ActivityDto> activities = activitiesByEvent.getOrDefault(event.getId(), List.of()).stream().map(activity -> {
                 ActivityDto.ActivityDtoBuilder activityBuilder = ActivityDto.builder()
                         .id(activity.getId())
                         .name(activity.getName())
                         .description(activity.getDescription())
                         .startTime(activity.getStartTime() != null ? activity.getStartTime().format(DATE_TIME_FORMATTER) : null)
                         .endTime(activity.getEndTime() != null ? activity.getEndTime().format(DATE_TIME_FORMATTER) : null)
-                        .status(calculateActivityStatus(activity.getStartTime(), activity.getEndTime()))
-                        .createdAt(activity.getCreatedAt() != null ? activity.getCreatedAt().format(DATE_TIME_FORMATTER) : null);
+                        .status(ActivityStatus.calculate(activity.getStartTime(), activity.getEndTime()))
+                        .createdAt(activity.getCreatedAt() != null ? activity.getCreatedAt().format(DATE_TIME_FORMATTER) : null)
+                        .image1(photoThumbnailService.thumbnailUrl(activity.getImage1(), imageWidth))
+                        .image2(photoThumbnailService.thumbnailUrl(activity.getImage2(), imageWidth));
                 
-                // Add enhanced fields for activities if requested
-                Integer activityTotalParticipants = activityService.getTotalParticipants(activity.getId());
-                Integer activityTotalTime = activityService.calculateTotalTime(activity, activityTotalParticipants);
-                activityBuilder.totalParticipants(activityTotalParticipants)
-                              .totalTime(activityTotalTime);
+                // Add enhanced fields for activities
+                ActivityStatsDto activityStats = eventStats.getActivityStats().get(activity.getId());
+                activityBuilder.totalParticipants(activityStats != null ? activityStats.getTotalParticipants() : 0)
+                              .totalTime(activityStats != null ? activityStats.getTotalTime() : 0);
                 
                 return activityBuilder.build();
             }).collect(Collectors.toList());
@@ -131,20 +98,17 @@ public class EventController {
                     .name(event.getName())
                     .startTime(event.getStartTime() != null ? event.getStartTime().format(DATE_TIME_FORMATTER) : null)
                     .endTime(event.getEndTime() != null ? event.getEndTime().format(DATE_TIME_FORMATTER) : null)
-                    .status(calculateEventStatus(event.getStartTime(), event.getEndTime()))
+                    .status(ActivityStatus.calculate(event.getStartTime(), event.getEndTime()))
                     .isDisplay(event.getIsDisplay() != null ? event.getIsDisplay() : false) // 需补充字段
-                    .bgImage(event.getAvatar())
+                    .bgImage(photoThumbnailService.thumbnailUrl(event.getAvatar(), imageWidth))
                     .activities(activities)
                     .createdAt(event.getCreatedAt() != null ? event.getCreatedAt().format(DATE_TIME_FORMATTER) : null)
-                    .detailImage(event.getDetailImage());
+                    .detailImage(photoThumbnailService.thumbnailUrl(event.getDetailImage(), imageWidth));
             
-            // Add enhanced fields if requested
-            Integer totalParticipants = eventService.getTotalParticipants(event.getId());
-            Integer totalTime = eventService.calculateTotalTime(event.getId());
-            java.math.BigDecimal totalAmount = eventService.calculateTotalAmount(event.getId());
-            builder.totalParticipants(totalParticipants)
-                   .totalTime(totalTime)
-                   .totalAmount(totalAmount);
+            // Add enhanced fields
+            builder.totalParticipants(eventStats.getTotalParticipants())
+                   .totalTime(eventStats.getTotalTime())
+                   .totalAmount(eventStats.getTotalAmount());
             
             return builder.build();
         }).collect(Collectors.toList());
@@ -182,7 +146,7 @@ public class EventController {
                 .name(event.getName())
                 .startTime(event.getStartTime() != null ? event.getStartTime().format(DATE_TIME_FORMATTER) : null)
                 .endTime(event.getEndTime() != null ? event.getEndTime().format(DATE_TIME_FORMATTER) : null)
-                .status(calculateEventStatus(event.getStartTime(), event.getEndTime()))
+                .status(ActivityStatus.calculate(event.getStartTime(), event.getEndTime()))
                 .icon(event.getAvatar())
                 .description(event.getDescription())
                 .isDisplay(event.getIsDisplay() != null ? event.getIsDisplay() : false)
@@ -190,7 +154,7 @@ public class EventController {
                 .visibleRoles(visibleRoles)
                 .createdAt(event.getCreatedAt() != null ? event.getCreatedAt().format(DATE_TIME_FORMATTER) : null)
                 .detailImage(event.getDetailImage())
-                .totalParticipants(eventService.getTotalParticipants(event.getId()))
+                .totalParticipants(statsCache.getEventStats(List.of(event.getId())).get(event.getId()).getTotalParticipants())
                 .build();
         return ResponseEntity.ok(BaseResponse.success(detail));
     }
@@ -1,20 +1,183 @@
 package com.blockchain.csr.controller;
 
+import com.blockchain.csr.model.dto.BaseResponse;
+import com.blockchain.csr.model.dto.PhotoDto;
 import com.blockchain.csr.model.entity.Photo;
 import com.blockchain.csr.repository.PhotoRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.blockchain.csr.service.PhotoMigrationService;
+import com.blockchain.csr.service.PhotoStorageService;
+import com.blockchain.csr.service.PhotoThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/photos")
+@RequiredArgsConstructor
 public class PhotoController {
-    @Autowired
-    private PhotoRepository photoRepository;
+    private final PhotoRepository photoRepository;
+    private final PhotoStorageService photoStorageService;
+    private final PhotoMigrationService photoMigrationService;
+    private final PhotoThumbnailService photoThumbnailService;
 
+    @Value("${photo.cache.max-age-seconds:86400}")
+    private long cacheMaxAgeSeconds;
+
+    /**
+     * 上传照片，原始字节写入照片存储
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public BaseResponse<PhotoDto> uploadPhoto(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        String type = file.getContentType();
+        if (type == null || !type.startsWith("image/")) {
+            throw new IllegalArgumentException("仅支持图片文件");
+        }
+
+        PhotoStorageService.StoredPhoto stored;
+        try (InputStream in = file.getInputStream()) {
+            stored = photoStorageService.store(in);
+        }
+        Photo photo = new Photo();
+        photo.setName(file.getOriginalFilename() != null ? file.getOriginalFilename() : stored.hash());
+        photo.setType(type);
+        photo.setContentHash(stored.hash());
+        photo.setSize(stored.size());
+        photo = photoRepository.save(photo);
+        return BaseResponse.success(new PhotoDto(photo.getId(), photo.getName(), photo.getType(), photo.getSize(), photo.getContentHash()));
+    }
+
+    /**
+     * 获取照片元数据，图片内容通过 contentUrl 获取
+     */
+    @GetMapping("/{id}/metadata")
+    public ResponseEntity<BaseResponse<PhotoDto>> getPhotoMetadata(@PathVariable Long id) {
+        PhotoDto photo = findStoredPhoto(id);
+        if (photo == null) {
+            return ResponseEntity.ok(BaseResponse.error(404, "照片不存在"));
+        }
+        return ResponseEntity.ok(BaseResponse.success(photo));
+    }
+
+    /**
+     * 旧接口：返回内嵌 base64 内容的照片对象，保留一个版本供旧客户端迁移到 /{id}/metadata 和 /{id}/content
+     */
+    @Deprecated
     @GetMapping("/{id}")
-    public Photo getPhotoById(@PathVariable Long id) {
-        return photoRepository.findById(id).orElse(null);
+    public ResponseEntity<Photo> getPhotoById(@PathVariable Long id) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Deprecation", "true");
+        headers.set(HttpHeaders.LINK, "</api/photos/" + id + "/metadata>; rel=\"successor-version\"");
+
+        PhotoDto stored = findStoredPhoto(id);
+        Path file = stored != null ? photoStorageService.resolve(stored.getContentHash()) : null;
+        if (file == null || !Files.isRegularFile(file)) {
+            // 与旧接口一致：照片不存在时返回空响应体
+            return ResponseEntity.ok().headers(headers).build();
+        }
+
+        // 只拼装响应，不是托管实体，不会写回 photo 表
+        Photo photo = new Photo();
+        photo.setId(stored.getId());
+        photo.setName(stored.getName());
+        photo.setType(stored.getType());
+        photo.setContent(Base64.getEncoder().encodeToString(Files.readAllBytes(file)));
+        photo.setContentHash(stored.getContentHash());
+        photo.setSize(stored.getSize());
+        return ResponseEntity.ok().headers(headers).body(photo);
+    }
+
+    /**
+     * 获取照片内容，支持 ETag 协商缓存（304）和 Range 分段请求（206）；传入 w 时返回该宽度的缩略图
+     */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<Resource> getPhotoContent(@PathVariable Long id,
+                                                    @RequestParam(value = "w", required = false) Integer width,
+                                                    @RequestParam(value = "format", required = false) String format) throws IOException {
+        if (width != null && !photoThumbnailService.isSupportedWidth(width)) {
+            throw new IllegalArgumentException("不支持的图片宽度: " + width);
+        }
+        PhotoDto photo = findStoredPhoto(id);
+        if (photo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = photoStorageService.resolve(photo.getContentHash());
+        if (!Files.isRegularFile(file)) {
+            log.error("Stored file missing for photo {} ({})", id, photo.getContentHash());
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = photo.getContentHash();
+        MediaType contentType = mediaType(photo.getType());
+        if (width != null) {
+            String outputFormat = photoThumbnailService.resolveFormat(format, photo.getType());
+            file = photoThumbnailService.thumbnail(photo, width, outputFormat);
+            if (file == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            etag = etag + "-w" + width + "." + outputFormat;
+            contentType = MediaType.parseMediaType("image/" + outputFormat);
+        }
+
+        // The ETag is derived from the content hash, so If-None-Match is answered with 304 and Range
+        // requests are split into regions by Spring without reading anything but the requested bytes
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(cacheMaxAgeSeconds)).cachePrivate())
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(photo.getName() != null ? photo.getName() : String.valueOf(id), StandardCharsets.UTF_8)
+                        .build().toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * Metadata of a photo whose bytes are in the photo store, migrating a legacy base64 row on first access
+     */
+    private PhotoDto findStoredPhoto(Long id) {
+        PhotoDto photo = photoRepository.findMetadataById(id).orElse(null);
+        if (photo == null || photo.getContentHash() != null) {
+            return photo;
+        }
+        if (!photoMigrationService.migrate(id)) {
+            return null;
+        }
+        return photoRepository.findMetadataById(id).orElse(null);
+    }
+
+    private static MediaType mediaType(String type) {
+        if (type == null || type.isBlank()) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(type);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
     }
-}
\ No newline at end of file
+}
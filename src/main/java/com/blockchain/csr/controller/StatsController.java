@@ -0,0 +1,54 @@
+package com.blockchain.csr.controller;
+
+import com.blockchain.csr.model.dto.BaseResponse;
+import com.blockchain.csr.model.dto.StatsRebuildReport;
+import com.blockchain.csr.service.ParticipationStatsService;
+import com.blockchain.csr.service.StatsCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Maintenance endpoints for the participation stats tables
+ */
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@Slf4j
+public class StatsController {
+
+    private final ParticipationStatsService participationStatsService;
+    private final StatsCache statsCache;
+
+    /**
+     * Recompute all participation counters from user_activity and report drift
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<StatsRebuildReport>> rebuild() {
+        try {
+            log.info("Admin requesting participation stats rebuild");
+            StatsRebuildReport report = participationStatsService.rebuildAll();
+            return ResponseEntity.ok(BaseResponse.success(report));
+        } catch (Exception e) {
+            log.error("Error rebuilding participation stats: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(BaseResponse.internalError("Failed to rebuild participation stats"));
+        }
+    }
+
+    /**
+     * Hit/miss/eviction counters of the participation stats cache
+     */
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BaseResponse<Map<String, Map<String, Object>>>> cacheMetrics() {
+        return ResponseEntity.ok(BaseResponse.success(statsCache.getMetrics()));
+    }
+}
@@ -15,6 +15,7 @@ import com.blockchain.csr.model.dto.UserActivityDetailsResponse;
 import com.blockchain.csr.service.UserService;
 import com.blockchain.csr.service.UserActivityService;
 import com.blockchain.csr.service.UserEventService;
+import com.blockchain.csr.service.UserStatusCache;
 import com.blockchain.csr.config.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +36,7 @@ public class UserController {
     private final UserActivityService userActivityService;
     private final UserEventService userEventService;
     private final SecurityUtils securityUtils;
+    private final UserStatusCache userStatusCache;
 
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -115,6 +117,8 @@ public class UserController {
         try {
             log.info("Admin requesting to update user ID: {} with data: {}", id, updateRequest);
             userService.updateUser(id, updateRequest);
+            // Role or username may have changed; don't wait for the status cache TTL
+            userStatusCache.evictUserIds(List.of(id));
             return ResponseEntity.ok(BaseResponse.success("Update user successful"));
         } catch (IllegalArgumentException e) {
             log.warn("Update user failed for ID {}: {}", id, e.getMessage());
@@ -151,6 +155,7 @@ public class UserController {
         try {
             log.info("Admin requesting to batch delete users with IDs: {}", batchDeleteRequest.getUserIds());
             userService.batchDeleteUsers(batchDeleteRequest.getUserIds());
+            userStatusCache.evictUserIds(batchDeleteRequest.getUserIds());
             return ResponseEntity.ok(BaseResponse.success("Batch deletion success."));
         } catch (IllegalArgumentException e) {
             log.warn("Batch delete failed: {}", e.getMessage());
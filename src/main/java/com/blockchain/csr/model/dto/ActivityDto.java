@@ -17,6 +17,8 @@ public class ActivityDto {
     private String endTime;
     private String status;
     private String createdAt;
+    private String image1;
+    private String image2;
     
     // Enhanced fields for when needsTotal=true
     private Integer totalParticipants;
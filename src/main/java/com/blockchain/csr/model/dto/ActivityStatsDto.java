@@ -0,0 +1,23 @@
+package com.blockchain.csr.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated participation totals for a single activity
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityStatsDto {
+    private Integer activityId;
+    private Integer eventId;
+    private Integer totalParticipants;
+    private Integer totalTime;
+    private BigDecimal totalAmount;
+}
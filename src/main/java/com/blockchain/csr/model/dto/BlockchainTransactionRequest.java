@@ -41,4 +41,9 @@ public class BlockchainTransactionRequest {
             UUID.randomUUID().toString()
         );
     }
-}
\ No newline at end of file
+
+    // 捐赠交易：用户发起，admin 接收并背书；requestId 作为 uuid，重试时保持不变
+    public static BlockchainTransactionRequest donation(Integer sender, DonationDetailDTO transaction, String requestId) {
+        return new BlockchainTransactionRequest(sender, "admin", "admin", transaction, requestId);
+    }
+}
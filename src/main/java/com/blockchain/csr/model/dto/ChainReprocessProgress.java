@@ -0,0 +1,37 @@
+package com.blockchain.csr.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Progress of the job that queues missing chain submissions
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainReprocessProgress {
+    private Long jobId;
+    private String status;
+    private Integer lastUserActivityId;
+    private Long scanned;
+    // Rows handed to the chain outbox
+    private Long queued;
+    // Rows that already have a chain ID or pending submission, or lack a comment or amount
+    private Long skipped;
+    // Rows whose detail could not be read (submission failures show up in the outbox counts)
+    private Long unparseable;
+    // Scanned rows per second since the job started
+    private Double ratePerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    private String lastError;
+    // Current chain outbox counts by status, to follow the submissions themselves
+    private Map<String, Long> outbox;
+}
@@ -0,0 +1,19 @@
+package com.blockchain.csr.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainVerifyRequest {
+
+    @NotEmpty(message = "Chain IDs cannot be empty")
+    private List<String> chainIds;
+}
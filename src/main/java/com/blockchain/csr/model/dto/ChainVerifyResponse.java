@@ -0,0 +1,28 @@
+package com.blockchain.csr.model.dto;
+
+import com.blockchain.csr.model.enums.ChainVerification;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Result of a bulk chain transaction verification
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainVerifyResponse {
+    // chain ID -> VALID / INVALID / UNKNOWN, in request order without duplicates
+    private Map<String, ChainVerification> results;
+    private Integer valid;
+    private Integer invalid;
+    private Integer unknown;
+    // How many answers came from the cache and how many were asked from the chain
+    private Integer cacheHits;
+    private Integer verified;
+    private Long durationMs;
+}
@@ -24,6 +24,7 @@ public class DonationDetailDTO extends BasicDetailDTO {
     @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
     private BigDecimal amount;
     private String chainId; // 新增区块链交易ID字段
+    private String chainState; // 上链状态：PENDING / SENT / FAILED
 
     public DonationDetailDTO(String comment, @NotNull BigDecimal amount) {
         super(comment);
@@ -16,6 +16,7 @@ public class DurationDetailDTO extends BasicDetailDTO {
     @NotNull(message = "Duration is required")
     private Integer duration;
     private String chainId; // 区块链交易ID字段
+    private String chainState; // 上链状态：PENDING / SENT / FAILED
 
     public DurationDetailDTO(String comment, @NotNull Integer duration, String chainId) {
         super(comment);
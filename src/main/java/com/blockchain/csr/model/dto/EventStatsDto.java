@@ -0,0 +1,26 @@
+package com.blockchain.csr.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Aggregated participation totals for an event and its activities
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventStatsDto {
+    private Integer eventId;
+    private Integer totalParticipants;
+    private Integer totalTime;
+    private BigDecimal totalAmount;
+
+    // Per-activity totals keyed by activity ID
+    private Map<Integer, ActivityStatsDto> activityStats;
+}
@@ -0,0 +1,23 @@
+package com.blockchain.csr.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Photo metadata; the bytes are served separately from {@link #getContentUrl()}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoDto {
+    private Long id;
+    private String name;
+    private String type;
+    private Long size;
+    private String contentHash;
+
+    public String getContentUrl() {
+        return "/api/photos/" + id + "/content";
+    }
+}
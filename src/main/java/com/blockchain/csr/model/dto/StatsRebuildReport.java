@@ -0,0 +1,25 @@
+package com.blockchain.csr.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of recomputing the participation stats tables from user_activity
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsRebuildReport {
+    private Integer eventsChecked;
+    private Integer activitiesChecked;
+    private Integer eventsDrifted;
+    private Integer activitiesDrifted;
+    // A sample of the drifted rows, e.g. "activity 12: participants 40 -> 41"
+    private List<String> driftSamples;
+    private Long durationMs;
+}
@@ -0,0 +1,35 @@
+package com.blockchain.csr.model.entity;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized participation counters for an activity.
+ * Maintained incrementally on signup/withdraw/detail update and repaired by the stats rebuild job.
+ */
+@Entity
+@Data
+@Table(name = "activity_stats")
+public class ActivityStats {
+    @Id
+    @Column(name = "activity_id")
+    private Integer activityId;
+
+    @Column(name = "event_id")
+    private Integer eventId;
+
+    @Column(name = "participants", nullable = false)
+    private Integer participants = 0;
+
+    @Column(name = "total_minutes", nullable = false)
+    private Integer totalMinutes = 0;
+
+    @Column(name = "total_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,64 @@
+package com.blockchain.csr.model.entity;
+
+import com.blockchain.csr.model.enums.ChainOutboxStatus;
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pending blockchain submission of an activity detail.
+ * Written in the same transaction as the detail and drained by the outbox dispatcher.
+ */
+@Entity
+@Data
+@Table(name = "chain_outbox")
+public class ChainOutbox {
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_activity_id", nullable = false)
+    private Integer userActivityId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "amount", precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "comment", columnDefinition = "TEXT")
+    private String comment;
+
+    /**
+     * Sent as the transaction uuid on every attempt so the chain can de-duplicate retries
+     */
+    @Column(name = "request_id", length = 36, nullable = false)
+    private String requestId;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status = ChainOutboxStatus.PENDING.getValue();
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "chain_id", length = 100)
+    private String chainId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
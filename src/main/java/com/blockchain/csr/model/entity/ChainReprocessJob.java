@@ -0,0 +1,63 @@
+package com.blockchain.csr.model.entity;
+
+import com.blockchain.csr.model.enums.ChainReprocessStatus;
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress and checkpoint of a job that queues chain submissions for user activity details
+ * that never got a chain ID. The cursor only moves forward together with the rows it queued.
+ */
+@Entity
+@Data
+@Table(name = "chain_reprocess_job")
+public class ChainReprocessJob {
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status = ChainReprocessStatus.RUNNING.getValue();
+
+    /**
+     * Node currently running the job; another node adopts it when the heartbeat goes stale
+     */
+    @Column(name = "owner", length = 36)
+    private String owner;
+
+    /**
+     * Highest user_activity ID already handled
+     */
+    @Column(name = "last_user_activity_id", nullable = false)
+    private Integer lastUserActivityId = 0;
+
+    @Column(name = "scanned", nullable = false)
+    private Long scanned = 0L;
+
+    @Column(name = "queued", nullable = false)
+    private Long queued = 0L;
+
+    @Column(name = "skipped", nullable = false)
+    private Long skipped = 0L;
+
+    /**
+     * Rows whose detail could not be read; submission failures are tracked by the chain outbox
+     */
+    @Column(name = "unparseable", nullable = false)
+    private Long unparseable = 0L;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
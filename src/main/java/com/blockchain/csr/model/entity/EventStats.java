@@ -0,0 +1,32 @@
+package com.blockchain.csr.model.entity;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized participation counters for an event.
+ * participants is the number of unique users signed up to any activity of the event.
+ */
+@Entity
+@Data
+@Table(name = "event_stats")
+public class EventStats {
+    @Id
+    @Column(name = "event_id")
+    private Integer eventId;
+
+    @Column(name = "participants", nullable = false)
+    private Integer participants = 0;
+
+    @Column(name = "total_minutes", nullable = false)
+    private Integer totalMinutes = 0;
+
+    @Column(name = "total_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
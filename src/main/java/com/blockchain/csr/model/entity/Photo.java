@@ -16,7 +16,12 @@ public class Photo {
     private String type;
 
     @Lob
-    private String content; // Base64 encoded image data
+    private String content; // Legacy base64 data, cleared once the bytes are in the photo store
 
-    // Getters and setters
-}
\ No newline at end of file
+    // SHA-256 hex of the raw bytes, names the file in the photo store and doubles as the ETag
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "size")
+    private Long size;
+}
@@ -0,0 +1,31 @@
+package com.blockchain.csr.model.entity;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Issued refresh token. Only the SHA-256 of the token is stored.
+ */
+@Entity
+@Data
+@Table(name = "refresh_token")
+public class RefreshToken {
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", length = 44, nullable = false, unique = true)
+    private String tokenHash;
+
+    @Column(name = "username", length = 45, nullable = false)
+    private String username;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
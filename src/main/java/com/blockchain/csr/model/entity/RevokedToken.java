@@ -0,0 +1,32 @@
+package com.blockchain.csr.model.entity;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Access token revoked before its expiry (e.g. by logout), identified by its jti claim.
+ * Kept only until the token would have expired anyway.
+ */
+@Entity
+@Data
+@Table(name = "revoked_token")
+public class RevokedToken {
+    /**
+     * Increasing ID, used by the nodes as the cursor for syncing new revocations
+     */
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "jti", length = 36, nullable = false, unique = true)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
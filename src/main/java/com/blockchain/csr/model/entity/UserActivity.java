@@ -1,12 +1,16 @@
 package com.blockchain.csr.model.entity;
 
 import com.blockchain.csr.config.JsonConverter;
+import com.blockchain.csr.model.dto.DonationDetailDTO;
 import lombok.Data;
 
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 
 /**
@@ -48,9 +52,56 @@ public class UserActivity {
     @Convert(converter = JsonConverter.class)
     private Serializable detail;
 
+    /**
+     * Amount extracted from a donation detail so totals can be summed in SQL;
+     * null when the detail carries no amount or the amount is malformed
+     */
+    @Column(name = "donation_amount", precision = 19, scale = 2)
+    private BigDecimal donationAmount;
+
+    /**
+     * Set once donation_amount has been extracted from the detail, even when no valid amount was found;
+     * null on rows written before the column existed, which the startup backfill picks up
+     */
+    @Column(name = "donation_amount_extracted")
+    private Boolean donationAmountExtracted;
+
     @Column(name = "deleted", nullable = false)
     private Boolean deleted = false;
 
+    @PrePersist
+    @PreUpdate
+    void extractDonationAmount() {
+        this.donationAmount = parseDonationAmount(detail);
+        this.donationAmountExtracted = true;
+    }
+
+    /**
+     * Read the amount of a donation detail (DTO or deserialized JSON map)
+     *
+     * @param detail the detail
+     * @return the amount, or null when absent or malformed
+     */
+    public static BigDecimal parseDonationAmount(Object detail) {
+        Object amount = null;
+        if (detail instanceof DonationDetailDTO donationDetail) {
+            amount = donationDetail.getAmount();
+        } else if (detail instanceof Map<?, ?> detailMap) {
+            amount = detailMap.get("amount");
+        }
+
+        try {
+            if (amount instanceof BigDecimal decimal) {
+                return decimal.setScale(2, RoundingMode.HALF_UP);
+            } else if (amount instanceof Number || amount instanceof String) {
+                return new BigDecimal(amount.toString().trim()).setScale(2, RoundingMode.HALF_UP);
+            }
+        } catch (NumberFormatException e) {
+            // Malformed amounts are left out of the totals
+        }
+        return null;
+    }
+
     // JPA relationships (optional - can be added later if needed)
     // @ManyToOne
     // @JoinColumn(name = "user_id", insertable = false, updatable = false)
@@ -1,10 +1,15 @@
 package com.blockchain.csr.model.enums;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
 public enum ActivityStatus {
     NOT_STARTED("NOT_STARTED"),
     IN_PROGRESS("IN_PROGRESS"),
     FINISHED("FINISHED");
 
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
     private final String value;
 
     ActivityStatus(String value) {
@@ -15,6 +20,35 @@ public enum ActivityStatus {
         return value;
     }
 
+    /**
+     * Status of an activity or event right now, derived from its start and end times
+     *
+     * @param startTime the start time
+     * @param endTime the end time
+     * @return the status value, NOT_STARTED when either time is missing
+     */
+    public static String calculate(LocalDateTime startTime, LocalDateTime endTime) {
+        return calculate(startTime, endTime, LocalDateTime.now(ZONE));
+    }
+
+    /**
+     * Status at the given time
+     *
+     * @param startTime the start time
+     * @param endTime the end time
+     * @param now the time to evaluate at, in Asia/Shanghai local time
+     * @return the status value, NOT_STARTED when either time is missing
+     */
+    public static String calculate(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime now) {
+        if (startTime == null || endTime == null || now.isBefore(startTime)) {
+            return NOT_STARTED.getValue();
+        } else if (now.isAfter(endTime)) {
+            return FINISHED.getValue();
+        } else {
+            return IN_PROGRESS.getValue();
+        }
+    }
+
     @Override
     public String toString() {
         return this.value;
@@ -0,0 +1,26 @@
+package com.blockchain.csr.model.enums;
+
+/**
+ * Status of a chain_outbox row
+ */
+public enum ChainOutboxStatus {
+    PENDING("PENDING"),
+    IN_FLIGHT("IN_FLIGHT"),
+    SENT("SENT"),
+    FAILED("FAILED");
+
+    private final String value;
+
+    ChainOutboxStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
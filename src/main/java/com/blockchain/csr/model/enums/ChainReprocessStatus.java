@@ -0,0 +1,26 @@
+package com.blockchain.csr.model.enums;
+
+/**
+ * Status of a chain_reprocess_job row
+ */
+public enum ChainReprocessStatus {
+    RUNNING("RUNNING"),
+    COMPLETED("COMPLETED"),
+    CANCELLED("CANCELLED"),
+    FAILED("FAILED");
+
+    private final String value;
+
+    ChainReprocessStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,25 @@
+package com.blockchain.csr.model.enums;
+
+/**
+ * Blockchain submission state of an activity detail
+ */
+public enum ChainState {
+    PENDING("PENDING"),
+    SENT("SENT"),
+    FAILED("FAILED");
+
+    private final String value;
+
+    ChainState(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package com.blockchain.csr.model.enums;
+
+/**
+ * Outcome of verifying a transaction on the chain. UNKNOWN means the chain could not be asked
+ * (unreachable, circuit open, malformed answer), not that the transaction is invalid.
+ */
+public enum ChainVerification {
+    VALID("VALID"),
+    INVALID("INVALID"),
+    UNKNOWN("UNKNOWN");
+
+    private final String value;
+
+    ChainVerification(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
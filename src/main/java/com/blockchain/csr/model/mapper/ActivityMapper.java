@@ -8,8 +8,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.List;
 
 @Component
@@ -43,7 +41,7 @@ public class ActivityMapper {
         dto.setDescription(entity.getDescription());
         dto.setStartTime(entity.getStartTime());
         dto.setEndTime(entity.getEndTime());
-        dto.setStatus(calculateActivityStatus(entity.getStartTime(), entity.getEndTime()));
+        dto.setStatus(ActivityStatus.calculate(entity.getStartTime(), entity.getEndTime()));
         dto.setVisibleLocations(convertToList(entity.getVisibleLocations()));
         dto.setVisibleRoles(convertToList(entity.getVisibleRoles()));
         dto.setCreatedAt(entity.getCreatedAt());
@@ -52,29 +50,6 @@ public class ActivityMapper {
         return dto;
     }
 
-    /**
-     * Calculate activity status based on current time vs start/end times
-     * 
-     * @param startTime the activity start time
-     * @param endTime the activity end time
-     * @return the calculated status string
-     */
-    private String calculateActivityStatus(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
-            return ActivityStatus.NOT_STARTED.getValue();
-        }
-        
-        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
-        
-        if (now.isBefore(startTime)) {
-            return ActivityStatus.NOT_STARTED.getValue();
-        } else if (now.isAfter(endTime)) {
-            return ActivityStatus.FINISHED.getValue();
-        } else {
-            return ActivityStatus.IN_PROGRESS.getValue();
-        }
-    }
-
     /**
      * Convert Activity entity to ActivityResponseDto with enhanced fields
      *
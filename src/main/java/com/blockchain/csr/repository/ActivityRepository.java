@@ -23,6 +23,14 @@ public interface ActivityRepository extends JpaRepository<Activity, Integer> {
      * @return List<Activity>
      */
     List<Activity> findByEventId(Integer eventId);
+
+    /**
+     * Find activities for several events at once
+     *
+     * @param eventIds the event IDs
+     * @return List<Activity>
+     */
+    List<Activity> findByEventIdIn(List<Integer> eventIds);
     
     /**
      * Find activities by template ID
@@ -44,4 +52,25 @@ public interface ActivityRepository extends JpaRepository<Activity, Integer> {
 
     @Query("SELECT a FROM Activity a WHERE a.id IN :ids")
     Page<Activity> findByIdIn(@Param("ids") List<Integer> ids, Pageable pageable);
-} 
\ No newline at end of file
+
+    /**
+     * Page through the activities a user is SIGNED_UP for, joined with the user's record, ordered by activity ID.
+     * If the user has several live SIGNED_UP records for one activity only the newest is joined, so each activity
+     * appears once and the count is of distinct activities.
+     *
+     * @param userId the user ID
+     * @param eventId optional event filter (null for all events)
+     * @param pageable page request (unsorted; ordering is fixed by the query)
+     * @return rows of [Activity, UserActivity]
+     */
+    @Query(value = "SELECT a, ua FROM Activity a JOIN UserActivity ua ON ua.activityId = a.id " +
+                   "WHERE ua.userId = :userId AND ua.state = 'SIGNED_UP' AND (ua.deleted = false OR ua.deleted IS NULL) " +
+                   "AND ua.id = (SELECT MAX(latest.id) FROM UserActivity latest " +
+                   "WHERE latest.activityId = a.id AND latest.userId = :userId AND latest.state = 'SIGNED_UP' " +
+                   "AND (latest.deleted = false OR latest.deleted IS NULL)) " +
+                   "AND (:eventId IS NULL OR a.eventId = :eventId) ORDER BY a.id",
+           countQuery = "SELECT COUNT(DISTINCT a.id) FROM UserActivity ua JOIN Activity a ON ua.activityId = a.id " +
+                        "WHERE ua.userId = :userId AND ua.state = 'SIGNED_UP' AND (ua.deleted = false OR ua.deleted IS NULL) " +
+                        "AND (:eventId IS NULL OR a.eventId = :eventId)")
+    Page<Object[]> findSignedUpWithUserActivity(@Param("userId") Integer userId, @Param("eventId") Integer eventId, Pageable pageable);
+}
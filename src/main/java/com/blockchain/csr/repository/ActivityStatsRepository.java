@@ -0,0 +1,48 @@
+package com.blockchain.csr.repository;
+
+import com.blockchain.csr.model.entity.ActivityStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * JPA Repository for ActivityStats entity
+ */
+@Repository
+public interface ActivityStatsRepository extends JpaRepository<ActivityStats, Integer> {
+
+    /**
+     * Find activity stats for several events at once
+     *
+     * @param eventIds the event IDs
+     * @return List<ActivityStats>
+     */
+    List<ActivityStats> findByEventIdIn(List<Integer> eventIds);
+
+    /**
+     * Atomically add deltas to the counters of an activity, creating the row if it does not exist yet
+     *
+     * @param activityId the activity ID
+     * @param eventId the event ID of the activity
+     * @param participants participants delta
+     * @param minutes total minutes delta
+     * @param amount donation amount delta
+     * @return affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO activity_stats (activity_id, event_id, participants, total_minutes, total_amount, updated_at) " +
+                   "VALUES (:activityId, :eventId, GREATEST(:participants, 0), GREATEST(:minutes, 0), GREATEST(:amount, 0), NOW()) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "participants = GREATEST(participants + :participants, 0), " +
+                   "total_minutes = GREATEST(total_minutes + :minutes, 0), " +
+                   "total_amount = GREATEST(total_amount + :amount, 0), " +
+                   "updated_at = NOW()", nativeQuery = true)
+    int applyDelta(@Param("activityId") Integer activityId, @Param("eventId") Integer eventId,
+                   @Param("participants") int participants, @Param("minutes") int minutes,
+                   @Param("amount") BigDecimal amount);
+}
@@ -0,0 +1,81 @@
+package com.blockchain.csr.repository;
+
+import com.blockchain.csr.model.entity.ChainOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JPA Repository for ChainOutbox entity
+ */
+@Repository
+public interface ChainOutboxRepository extends JpaRepository<ChainOutbox, Long> {
+
+    /**
+     * Find IDs of rows that are due: PENDING rows whose backoff has elapsed and
+     * IN_FLIGHT rows whose claim went stale (the node handling them died)
+     *
+     * @param now the current time
+     * @param staleBefore IN_FLIGHT rows locked before this time are reclaimed
+     * @param pageable batch size
+     * @return due row IDs, oldest first
+     */
+    @Query("SELECT o.id FROM ChainOutbox o " +
+           "WHERE (o.status = 'PENDING' AND o.nextAttemptAt <= :now) " +
+           "OR (o.status = 'IN_FLIGHT' AND o.lockedAt < :staleBefore) " +
+           "ORDER BY o.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+
+    /**
+     * Claim a due row for this node. The condition repeats the due check so only one node wins.
+     *
+     * @param id the row ID
+     * @param now the current time
+     * @param staleBefore IN_FLIGHT rows locked before this time may be reclaimed
+     * @return 1 if claimed, 0 if another node got it first
+     */
+    @Modifying
+    @Query("UPDATE ChainOutbox o SET o.status = 'IN_FLIGHT', o.lockedAt = :now, o.attempts = o.attempts + 1, o.updatedAt = :now " +
+           "WHERE o.id = :id AND ((o.status = 'PENDING' AND o.nextAttemptAt <= :now) " +
+           "OR (o.status = 'IN_FLIGHT' AND o.lockedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Find newer submissions for the same user activity with a locking read, so rows committed after
+     * the calling transaction started are seen too
+     *
+     * @param userActivityId the user activity ID
+     * @param id the row ID
+     * @return rows with a larger ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM ChainOutbox o WHERE o.userActivityId = :userActivityId AND o.id > :id")
+    List<ChainOutbox> findNewerForUpdate(@Param("userActivityId") Integer userActivityId, @Param("id") Long id);
+
+    /**
+     * Count rows grouped by status
+     *
+     * @return rows of [status, count]
+     */
+    @Query("SELECT o.status, COUNT(o) FROM ChainOutbox o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+
+    /**
+     * Put FAILED rows back in the queue
+     *
+     * @param now the current time
+     * @return number of rows re-queued
+     */
+    @Modifying
+    @Query("UPDATE ChainOutbox o SET o.status = 'PENDING', o.attempts = 0, o.nextAttemptAt = :now, o.updatedAt = :now " +
+           "WHERE o.status = 'FAILED'")
+    int requeueFailed(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,84 @@
+package com.blockchain.csr.repository;
+
+import com.blockchain.csr.model.entity.ChainReprocessJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * JPA Repository for ChainReprocessJob entity
+ */
+@Repository
+public interface ChainReprocessJobRepository extends JpaRepository<ChainReprocessJob, Long> {
+
+    /**
+     * Find the most recent job
+     *
+     * @return the latest job, if any
+     */
+    Optional<ChainReprocessJob> findFirstByOrderByIdDesc();
+
+    /**
+     * Find the most recent job with a status
+     *
+     * @param status the job status
+     * @return the latest job with that status, if any
+     */
+    Optional<ChainReprocessJob> findFirstByStatusOrderByIdDesc(String status);
+
+    /**
+     * Move the cursor forward and add a page's counts. Only succeeds while the job is still RUNNING,
+     * owned by the caller and the cursor is where the caller left it.
+     *
+     * @return 1 if the checkpoint was written, 0 if the job was cancelled or taken over
+     */
+    @Modifying
+    @Query("UPDATE ChainReprocessJob j SET j.lastUserActivityId = :to, j.scanned = j.scanned + :scanned, " +
+           "j.queued = j.queued + :queued, j.skipped = j.skipped + :skipped, j.unparseable = j.unparseable + :unparseable, " +
+           "j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.owner = :owner AND j.status = 'RUNNING' AND j.lastUserActivityId = :from")
+    int advance(@Param("id") Long id, @Param("owner") String owner,
+                @Param("from") Integer from, @Param("to") Integer to,
+                @Param("scanned") long scanned, @Param("queued") long queued,
+                @Param("skipped") long skipped, @Param("unparseable") long unparseable,
+                @Param("now") LocalDateTime now);
+
+    /**
+     * Refresh the heartbeat of a running job
+     *
+     * @return 1 if the caller still owns the running job, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE ChainReprocessJob j SET j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.owner = :owner AND j.status = 'RUNNING'")
+    int heartbeat(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    /**
+     * Take over a running job whose owner stopped sending heartbeats
+     *
+     * @param staleBefore jobs last updated before this time are considered abandoned
+     * @return 1 if this node now owns the job, 0 if the job is alive or another node got it first
+     */
+    @Modifying
+    @Query("UPDATE ChainReprocessJob j SET j.owner = :owner, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = 'RUNNING' AND (j.updatedAt IS NULL OR j.updatedAt < :staleBefore)")
+    int adopt(@Param("id") Long id, @Param("owner") String owner,
+              @Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    /**
+     * Move a running job to a final status
+     *
+     * @param owner the owning node, or null to finish it regardless of owner (cancel)
+     * @return 1 if the job was running and is now finished
+     */
+    @Modifying
+    @Query("UPDATE ChainReprocessJob j SET j.status = :status, j.lastError = :error, j.finishedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = 'RUNNING' AND (:owner IS NULL OR j.owner = :owner)")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") String status,
+               @Param("error") String error, @Param("now") LocalDateTime now);
+}
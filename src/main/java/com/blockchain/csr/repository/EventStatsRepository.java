@@ -0,0 +1,38 @@
+package com.blockchain.csr.repository;
+
+import com.blockchain.csr.model.entity.EventStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+/**
+ * JPA Repository for EventStats entity
+ */
+@Repository
+public interface EventStatsRepository extends JpaRepository<EventStats, Integer> {
+
+    /**
+     * Atomically add deltas to the counters of an event, creating the row if it does not exist yet
+     *
+     * @param eventId the event ID
+     * @param participants unique participants delta
+     * @param minutes total minutes delta
+     * @param amount donation amount delta
+     * @return affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO event_stats (event_id, participants, total_minutes, total_amount, updated_at) " +
+                   "VALUES (:eventId, GREATEST(:participants, 0), GREATEST(:minutes, 0), GREATEST(:amount, 0), NOW()) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "participants = GREATEST(participants + :participants, 0), " +
+                   "total_minutes = GREATEST(total_minutes + :minutes, 0), " +
+                   "total_amount = GREATEST(total_amount + :amount, 0), " +
+                   "updated_at = NOW()", nativeQuery = true)
+    int applyDelta(@Param("eventId") Integer eventId,
+                   @Param("participants") int participants, @Param("minutes") int minutes,
+                   @Param("amount") BigDecimal amount);
+}
@@ -1,7 +1,47 @@
 package com.blockchain.csr.repository;
 
+import com.blockchain.csr.model.dto.PhotoDto;
 import com.blockchain.csr.model.entity.Photo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface PhotoRepository extends JpaRepository<Photo, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Load photo metadata without touching the legacy base64 column
+     * @param id photo ID
+     * @return metadata, empty when the photo does not exist
+     */
+    @Query("SELECT new com.blockchain.csr.model.dto.PhotoDto(p.id, p.name, p.type, p.size, p.contentHash) " +
+           "FROM Photo p WHERE p.id = :id")
+    Optional<PhotoDto> findMetadataById(@Param("id") Long id);
+
+    /**
+     * Next batch of photos still holding base64 content, ordered by ID for cursor paging
+     * @param afterId only IDs greater than this are returned
+     * @param pageable batch size
+     * @return photo IDs
+     */
+    @Query("SELECT p.id FROM Photo p WHERE p.contentHash IS NULL AND p.content IS NOT NULL AND p.id > :afterId ORDER BY p.id")
+    List<Long> findLegacyContentIds(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Point a legacy photo at its stored file and drop the base64 copy, unless another node already did
+     * @param id photo ID
+     * @param contentHash SHA-256 hex of the stored bytes
+     * @param size byte length
+     * @param type content type taken from a data URI prefix, used only when the row has none
+     * @return 1 if migrated, 0 if the row was already migrated
+     */
+    @Modifying
+    @Query("UPDATE Photo p SET p.contentHash = :contentHash, p.size = :size, p.type = COALESCE(p.type, :type), p.content = NULL " +
+           "WHERE p.id = :id AND p.contentHash IS NULL")
+    int completeMigration(@Param("id") Long id, @Param("contentHash") String contentHash,
+                          @Param("size") Long size, @Param("type") String type);
+}
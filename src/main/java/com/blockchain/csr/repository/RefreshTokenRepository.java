@@ -0,0 +1,60 @@
+package com.blockchain.csr.repository;
+
+import com.blockchain.csr.model.entity.RefreshToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JPA Repository for RefreshToken entity
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Find the owner of an unexpired token
+     *
+     * @param tokenHash SHA-256 of the token
+     * @param now the current time
+     * @return the username, if the token is stored and not expired
+     */
+    @Query("SELECT t.username FROM RefreshToken t WHERE t.tokenHash = :tokenHash AND t.expiresAt > :now")
+    Optional<String> findUsernameByTokenHash(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    /**
+     * Delete a token by hash
+     *
+     * @param tokenHash SHA-256 of the token
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Delete all tokens of a user
+     *
+     * @param username the token owner
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.username = :username")
+    int deleteByUsername(@Param("username") String username);
+
+    /**
+     * Find IDs of expired tokens
+     *
+     * @param now the current time
+     * @param pageable batch size
+     * @return expired token IDs
+     */
+    @Query("SELECT t.id FROM RefreshToken t WHERE t.expiresAt <= :now")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,48 @@
+package com.blockchain.csr.repository;
+
+import com.blockchain.csr.model.entity.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JPA Repository for RevokedToken entity
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * Check whether a token ID was revoked
+     *
+     * @param jti the token ID
+     * @return true if revoked
+     */
+    boolean existsByJti(String jti);
+
+    /**
+     * Find revocations of tokens that have not expired yet, paged by ID cursor
+     *
+     * @param afterId only rows with a larger ID are returned
+     * @param now the current time
+     * @param pageable batch size
+     * @return rows of [id, jti], by ascending ID
+     */
+    @Query("SELECT t.id, t.jti FROM RevokedToken t WHERE t.id > :afterId AND t.expiresAt > :now ORDER BY t.id")
+    List<Object[]> findActiveAfter(@Param("afterId") Long afterId, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Delete revocations of tokens that have expired
+     *
+     * @param now the current time
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
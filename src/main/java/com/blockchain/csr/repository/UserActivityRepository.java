@@ -1,18 +1,33 @@
 package com.blockchain.csr.repository;
 
 import com.blockchain.csr.model.entity.UserActivity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * JPA Repository for UserActivity entity
  */
 @Repository
 public interface UserActivityRepository extends JpaRepository<UserActivity, Integer> {
+
+    /**
+     * Load a user activity with a row lock (SELECT ... FOR UPDATE). Waits for a concurrent writer
+     * of the row to commit and returns its committed state.
+     *
+     * @param id the user activity ID
+     * @return the locked user activity
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ua FROM UserActivity ua WHERE ua.id = :id")
+    Optional<UserActivity> findByIdForUpdate(@Param("id") Integer id);
     
     /**
      * Find user activities by user ID
@@ -72,6 +87,85 @@ public interface UserActivityRepository extends JpaRepository<UserActivity, Inte
            "WHERE a.eventId = :eventId AND ua.state = 'SIGNED_UP' AND (ua.deleted = false OR ua.deleted IS NULL)")
     Integer countUniqueSignedUpParticipantsByEventId(@Param("eventId") Integer eventId);
 
+    /**
+     * Count participants with SIGNED_UP state for several activities, grouped by activity (excluding deleted)
+     *
+     * @param activityIds the activity IDs
+     * @return rows of [activityId, count]
+     */
+    @Query("SELECT ua.activityId, COUNT(ua) FROM UserActivity ua " +
+           "WHERE ua.activityId IN :activityIds AND ua.state = 'SIGNED_UP' AND (ua.deleted = false OR ua.deleted IS NULL) " +
+           "GROUP BY ua.activityId")
+    List<Object[]> countSignedUpParticipantsGroupByActivityId(@Param("activityIds") List<Integer> activityIds);
+
+    /**
+     * Count unique participants with SIGNED_UP state for several events, grouped by event (de-duplicated, excluding deleted)
+     *
+     * @param eventIds the event IDs
+     * @return rows of [eventId, count]
+     */
+    @Query("SELECT a.eventId, COUNT(DISTINCT ua.userId) FROM UserActivity ua " +
+           "JOIN Activity a ON ua.activityId = a.id " +
+           "WHERE a.eventId IN :eventIds AND ua.state = 'SIGNED_UP' AND (ua.deleted = false OR ua.deleted IS NULL) " +
+           "GROUP BY a.eventId")
+    List<Object[]> countUniqueSignedUpParticipantsGroupByEventId(@Param("eventIds") List<Integer> eventIds);
+
+    /**
+     * Sum donation amounts of SIGNED_UP records for several donation activities (templateId = 2), grouped by activity.
+     * Rows whose detail has no valid amount have a null donation_amount and are skipped.
+     *
+     * @param activityIds the activity IDs
+     * @return rows of [activityId, sum]
+     */
+    @Query("SELECT ua.activityId, SUM(ua.donationAmount) FROM UserActivity ua " +
+           "JOIN Activity a ON ua.activityId = a.id " +
+           "WHERE ua.activityId IN :activityIds AND a.templateId = 2 AND ua.state = 'SIGNED_UP' " +
+           "AND ua.donationAmount IS NOT NULL AND (ua.deleted = false OR ua.deleted IS NULL) " +
+           "GROUP BY ua.activityId")
+    List<Object[]> sumDonationAmountGroupByActivityId(@Param("activityIds") List<Integer> activityIds);
+
+    /**
+     * Sum donation amounts of SIGNED_UP records for the donation activities (templateId = 2) of several events, grouped by event.
+     * Rows whose detail has no valid amount have a null donation_amount and are skipped.
+     *
+     * @param eventIds the event IDs
+     * @return rows of [eventId, sum]
+     */
+    @Query("SELECT a.eventId, SUM(ua.donationAmount) FROM UserActivity ua " +
+           "JOIN Activity a ON ua.activityId = a.id " +
+           "WHERE a.eventId IN :eventIds AND a.templateId = 2 AND ua.state = 'SIGNED_UP' " +
+           "AND ua.donationAmount IS NOT NULL AND (ua.deleted = false OR ua.deleted IS NULL) " +
+           "GROUP BY a.eventId")
+    List<Object[]> sumDonationAmountGroupByEventId(@Param("eventIds") List<Integer> eventIds);
+
+    /**
+     * Find donation records (templateId = 2) whose donation_amount has not been extracted yet, ordered by ID.
+     * Records without a valid amount are flagged as extracted too, so they are only returned once
+     *
+     * @param afterId only rows with a larger ID are returned
+     * @param pageable batch size
+     * @return the next batch of records
+     */
+    @Query("SELECT ua FROM UserActivity ua JOIN Activity a ON ua.activityId = a.id " +
+           "WHERE a.templateId = 2 AND ua.detail IS NOT NULL AND ua.donationAmountExtracted IS NULL AND ua.id > :afterId " +
+           "ORDER BY ua.id")
+    List<UserActivity> findDonationAmountBackfillBatch(@Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Find and lock the SIGNED_UP records of a user across all activities of an event (excluding deleted).
+     * A locking read sees rows committed after the transaction's snapshot, so a signup that waited
+     * for another one of the same user counts the record that one added.
+     *
+     * @param userId the user ID
+     * @param eventId the event ID
+     * @return signed up records
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ua FROM UserActivity ua WHERE ua.userId = :userId " +
+           "AND ua.activityId IN (SELECT a.id FROM Activity a WHERE a.eventId = :eventId) " +
+           "AND ua.state = 'SIGNED_UP' AND (ua.deleted = false OR ua.deleted IS NULL)")
+    List<UserActivity> findSignedUpByUserIdAndEventIdForUpdate(@Param("userId") Integer userId, @Param("eventId") Integer eventId);
+
     /**
      * Find user activities by userId and eventId
      * @param userId 用户ID
@@ -87,12 +181,15 @@ public interface UserActivityRepository extends JpaRepository<UserActivity, Inte
     UserActivity findTopByUserIdAndActivityIdOrderByCreatedAtDesc(Integer userId, Integer activityId);
     
     /**
-     * Find user activities where detail is not null and detail does not contain chainId,
-     * joined with activity table to get duration where template_id is not equal to 2
+     * Find the next batch of records with a detail whose activity template is not 2 (donation),
+     * i.e. the candidates for queueing a missing chain submission. Paged by ID cursor.
      *
-     * @return List of UserActivity matching the criteria
+     * @param afterId only records with a larger ID are returned
+     * @param pageable batch size
+     * @return the next batch of records
      */
     @Query("SELECT ua FROM UserActivity ua JOIN Activity a ON ua.activityId = a.id " +
-           "WHERE ua.detail IS NOT NULL AND a.templateId <> 2")
-    List<UserActivity> findWithDetailNoChainInDetailAndTemplateNot2();
+           "WHERE ua.detail IS NOT NULL AND a.templateId <> 2 AND ua.id > :afterId " +
+           "ORDER BY ua.id")
+    List<UserActivity> findChainReprocessBatch(@Param("afterId") Integer afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -1,12 +1,19 @@
 package com.blockchain.csr.repository;
 
 import com.blockchain.csr.model.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,6 +39,17 @@ public interface UserRepository extends JpaRepository<User, Integer>, JpaSpecifi
      * @return boolean
      */
     boolean existsByUsername(String username);
+
+    /**
+     * Find user by id and lock the row until the transaction ends.
+     * Signup and withdraw take it first, so one user's participation changes run one at a time.
+     *
+     * @param id the user id
+     * @return Optional<User>
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Integer id);
     
     /**
      * Get event count for a user
@@ -50,4 +68,33 @@ public interface UserRepository extends JpaRepository<User, Integer>, JpaSpecifi
      */
     @Query("SELECT COUNT(ua) FROM UserActivity ua WHERE ua.userId = :userId")
     Integer getActivityCountByUserId(@Param("userId") Integer userId);
-} 
\ No newline at end of file
+
+    /**
+     * Get event counts for several users, grouped by user
+     *
+     * @param userIds the user ids
+     * @return rows of [userId, count] (users without events are absent)
+     */
+    @Query("SELECT ue.userId, COUNT(ue) FROM UserEvent ue WHERE ue.userId IN :userIds GROUP BY ue.userId")
+    List<Object[]> countEventsGroupByUserId(@Param("userIds") List<Integer> userIds);
+
+    /**
+     * Get activity counts for several users, grouped by user
+     *
+     * @param userIds the user ids
+     * @return rows of [userId, count] (users without activities are absent)
+     */
+    @Query("SELECT ua.userId, COUNT(ua) FROM UserActivity ua WHERE ua.userId IN :userIds GROUP BY ua.userId")
+    List<Object[]> countActivitiesGroupByUserId(@Param("userIds") List<Integer> userIds);
+
+    /**
+     * Find a page of users with their reviewer fetch-joined
+     *
+     * @param spec the filter
+     * @param pageable the page request
+     * @return Page<User>
+     */
+    @Override
+    @EntityGraph(attributePaths = "reviewer")
+    Page<User> findAll(Specification<User> spec, Pageable pageable);
+}
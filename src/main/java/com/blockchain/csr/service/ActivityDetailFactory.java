@@ -4,6 +4,7 @@ import com.blockchain.csr.model.dto.BasicDetailDTO;
 import com.blockchain.csr.model.dto.DonationDetailDTO;
 import com.blockchain.csr.model.dto.DurationDetailDTO;
 import com.blockchain.csr.model.entity.Activity;
+import com.blockchain.csr.model.enums.ChainState;
 import com.blockchain.csr.repository.ActivityRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Component;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * Factory for creating ActivityDetailBase objects based on template ID
@@ -24,7 +24,6 @@ import java.util.Optional;
 public class ActivityDetailFactory {
 
     private final ObjectMapper objectMapper;
-    private final BlockchainService blockchainService;
     private final ActivityRepository activityRepository;
     
     /**
@@ -58,16 +57,16 @@ public class ActivityDetailFactory {
     }
     
     /**
-     * Create BasicDetailDTO from template ID and detail map with user context (for blockchain operations)
+     * Create the detail stored for a user's activity submission. The detail is marked as PENDING on chain;
+     * the blockchain transaction is submitted afterwards through the chain outbox.
      * 
      * @param templateId the template ID
      * @param detailMap the detail data map from request
-     * @param userId the user ID (for blockchain operations)
-     * @param activityId the activity ID (for blockchain operations)
-     * @return BasicDetailDTO instance
-     * @throws IllegalArgumentException if validation fails or unsupported template ID
+     * @param activityId the activity ID (duration activities record their duration)
+     * @return DonationDetailDTO for template 2, DurationDetailDTO otherwise
+     * @throws IllegalArgumentException if validation fails
      */
-    public BasicDetailDTO createDetail(Integer templateId, Map<String, Object> detailMap, Integer userId, Integer activityId) {
+    public BasicDetailDTO createPendingDetail(Integer templateId, Map<String, Object> detailMap, Integer activityId) {
         if (templateId == null) {
             throw new IllegalArgumentException("Template ID cannot be null");
         }
@@ -82,7 +81,34 @@ public class ActivityDetailFactory {
             throw new IllegalArgumentException("Comment is required");
         }
 
-        return createDonationDetailWithBlockchain(templateId, detailMap, userId, activityId);
+        if (templateId == 2) {
+            DonationDetailDTO donationDetail = createDonationDetail(comment, detailMap);
+            donationDetail.setChainState(ChainState.PENDING.getValue());
+            return donationDetail;
+        }
+
+        Integer duration = activityRepository.findById(activityId)
+                .map(Activity::getDuration)
+                .orElse(null);
+        DurationDetailDTO durationDetail = new DurationDetailDTO(comment, duration, null);
+        durationDetail.setChainState(ChainState.PENDING.getValue());
+        return durationDetail;
+    }
+
+    /**
+     * Amount recorded on chain for a detail: the donation amount, or the duration for duration activities
+     *
+     * @param detail the detail created by {@link #createPendingDetail}
+     * @return the amount, null if the activity has no duration
+     */
+    public BigDecimal chainAmount(BasicDetailDTO detail) {
+        if (detail instanceof DonationDetailDTO donationDetail) {
+            return donationDetail.getAmount();
+        }
+        if (detail instanceof DurationDetailDTO durationDetail && durationDetail.getDuration() != null) {
+            return BigDecimal.valueOf(durationDetail.getDuration());
+        }
+        return null;
     }
     
     /**
@@ -138,58 +164,6 @@ public class ActivityDetailFactory {
         return new DonationDetailDTO(comment, amount);
     }
     
-    /**
-     * Create DonationDetailDTO for template ID 2 with blockchain integration
-     */
-    private BasicDetailDTO createDonationDetailWithBlockchain(Integer templateId, Map<String, Object> detailMap, Integer userId, Integer activityId) {
-        String comment = (String) detailMap.get("comment");
-        BigDecimal amount = null;
-        Integer duration = null;
-        if(templateId == 2) {
-            Object amountObj = detailMap.get("amount");
-            if (amountObj == null) {
-                throw new IllegalArgumentException("Amount is required for donation activities");
-            }
-
-          amount = convertToAmount(amountObj);
-            if (amount.compareTo(BigDecimal.valueOf(0.01)) < 0) {
-                throw new IllegalArgumentException("Amount must be greater than 0.01");
-            }
-        }else{
-            Optional<Activity> activity = activityRepository.findById(activityId);
-            if(activity.isPresent()) {
-                duration = activity.get().getDuration();
-                amount = BigDecimal.valueOf(duration);
-            }
-        }
-
-        // 调用区块链服务创建交易
-        try {
-            log.info("Creating blockchain transaction for donation - userId: {}, activityId: {}, amount: {}", 
-                    userId, activityId, amount);
-            
-            // 创建捐赠详情DTO，包含chainId
-            DonationDetailDTO donationDetailDTO = new DonationDetailDTO(comment, amount);
-
-            String chainId = blockchainService.createDonationTransaction(userId, donationDetailDTO);
-
-            log.info("Successfully created blockchain transaction with chainId: {}", chainId);
-            
-            donationDetailDTO.setChainId(chainId); // 保存区块链交易ID到DTO
-
-            if(templateId != 2){
-                return new DurationDetailDTO(comment, duration, chainId);
-            }
-            
-            return donationDetailDTO;
-            
-        } catch (Exception e) {
-            log.error("Failed to create blockchain transaction for donation - userId: {}, activityId: {}, amount: {}", 
-                    userId, activityId, amount, e);
-            throw new RuntimeException("Failed to create blockchain transaction for donation", e);
-        }
-    }
-    
     /**
      * Convert amount object to BigDecimal
      */
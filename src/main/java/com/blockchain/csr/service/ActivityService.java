@@ -12,6 +12,7 @@ import com.blockchain.csr.model.entity.Activity;
 import com.blockchain.csr.model.entity.UserActivity;
 import com.blockchain.csr.model.enums.UserActivityState;
 import com.blockchain.csr.repository.ActivityRepository;
+import com.blockchain.csr.repository.ActivityStatsRepository;
 import com.blockchain.csr.repository.UserActivityRepository;
 import com.blockchain.csr.repository.UserRepository;
 
@@ -21,10 +22,16 @@ import java.time.LocalDateTime;
 // 添加分页相关import
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import com.blockchain.csr.model.dto.UserActivityDto;
 import com.blockchain.csr.model.dto.ActivityResponseDto;
+import com.blockchain.csr.model.dto.ActivityStatsDto;
 import org.springframework.util.ObjectUtils;
 
 import java.util.HashMap;
@@ -45,6 +52,10 @@ public class ActivityService{
     private final ActivityMapper activityMapper;
     private final ObjectMapper objectMapper;
     private final ActivityDetailFactory activityDetailFactory;
+    private final ActivityStatsRepository activityStatsRepository;
+    private final ParticipationStatsService participationStatsService;
+    private final StatsCache statsCache;
+    private final BusinessMetrics businessMetrics;
 
     // 获取活动详情
     public Activity getActivityById(Integer id) {
@@ -59,14 +70,29 @@ public class ActivityService{
         return savedActivity.getId(); // 返回实际创建的活动ID
     }
 
-    // 更新活动
-    public void updateActivity(Activity record) {
+    // 更新活动（previousEventId 为修改前的事件ID，活动移到其他事件时两个事件的统计都要重算）
+    public void updateActivity(Activity record, Integer previousEventId) {
         activityRepository.save(record);
+        // duration 可能变化，重新计算该事件的统计
+        List<Integer> eventIds = Stream.of(previousEventId, record.getEventId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (!eventIds.isEmpty()) {
+            participationStatsService.refreshEvents(eventIds);
+        }
     }
 
     // 删除活动
     public void deleteActivity(Integer id) {
+        Integer eventId = activityRepository.findById(id).map(Activity::getEventId).orElse(null);
         activityRepository.deleteById(id);
+        activityStatsRepository.deleteById(id);
+        statsCache.evictAfterCommit(id, eventId);
+        // 事件总计中扣除被删除活动的人数、时长和金额
+        if (eventId != null) {
+            participationStatsService.refreshEvents(List.of(eventId));
+        }
     }
 
     // 根据事件ID获取活动列表
@@ -87,8 +113,7 @@ public class ActivityService{
      * @return number of signed up participants
      */
     public Integer getTotalParticipants(Integer activityId) {
-        Integer count = userActivityRepository.countSignedUpParticipantsByActivityId(activityId);
-        return count != null ? count : 0;
+        return statsCache.getActivityStats(List.of(activityId)).get(activityId).getTotalParticipants();
     }
 
     /**
@@ -107,14 +132,15 @@ public class ActivityService{
 
     // 用户报名活动
     public void signupActivity(Integer activityId, Integer userId) {
+        // 验证用户是否存在，并锁住用户行：同一用户的报名/退出串行执行，赛事参与人数才不会重复计算
+        // 必须是事务里的第一条查询，之后的普通读才能看到前一个事务提交的记录
+        userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
         // 验证活动是否存在
         Activity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new IllegalArgumentException("Activity not found"));
         
-        // 验证用户是否存在
-        userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
         // 检查用户是否已经有该活动的记录
         List<UserActivity> existingRecords = userActivityRepository.findByUserIdAndActivityId(userId, activityId);
         if (existingRecords.size() > 1) {
@@ -134,6 +160,8 @@ public class ActivityService{
                 existingRecord.setDeleted(false); // 重新激活记录
                 existingRecord.setCreatedAt(LocalDateTime.now(ZoneId.of("Asia/Shanghai"))); // 更新报名时间
                 userActivityRepository.save(existingRecord);
+                participationStatsService.onSignup(activity, userId, existingRecord.getDetail());
+                businessMetrics.signup();
                 return;
             }
         }
@@ -156,18 +184,20 @@ public class ActivityService{
             }
             throw e; // Re-throw if it's a different constraint violation
         }
+        participationStatsService.onSignup(activity, userId, null);
+        businessMetrics.signup();
     }
 
     // 用户退出活动
     public void withdrawActivity(Integer activityId, Integer userId) {
+        // 验证用户是否存在，并锁住用户行（同报名）
+        userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
         // 验证活动是否存在
         Activity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new IllegalArgumentException("Activity not found"));
         
-        // 验证用户是否存在
-        userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
         // 查找用户的活动记录
         List<UserActivity> existingRecords = userActivityRepository.findByUserIdAndActivityId(userId, activityId);
 
@@ -176,11 +206,18 @@ public class ActivityService{
             throw new IllegalArgumentException("User has not signed up for this activity");
         }
 
+        // 只有之前处于SIGNED_UP状态的记录需要从统计中扣除
+        List<UserActivity> signedUpRecords = existingRecords.stream()
+                .filter(existingRecord -> UserActivityState.SIGNED_UP.getValue().equals(existingRecord.getState()))
+                .collect(Collectors.toList());
+
         existingRecords.stream().forEach(existingRecord -> {
             existingRecord.setState(UserActivityState.WITHDRAWN.getValue());
             existingRecord.setDeleted(true);
         });
         userActivityRepository.saveAll(existingRecords);
+        participationStatsService.onWithdraw(activity, userId, signedUpRecords);
+        businessMetrics.withdrawal();
     }
 
     /**
@@ -230,7 +267,7 @@ public class ActivityService{
                     // eventName 可选：如需可补充
                     return dto;
                 })
-                .filter(java.util.Objects::nonNull)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -239,74 +276,55 @@ public class ActivityService{
      * 
      * @param eventId Filter by event ID
      * @param userId If provided, get activities user has signed up for
-     * @param page Page number
+     * @param page Page number (1-based, null for all activities)
      * @param pageSize Page size
-     * @return List of activities with optional user activity details
+     * @return Page of activities with optional user activity details and the total count
      */
-    public List<ActivityResponseDto> getActivitiesWithUserDetails(Integer eventId, Integer userId, 
+    @Transactional(readOnly = true)
+    public Page<ActivityResponseDto> getActivitiesWithUserDetails(Integer eventId, Integer userId,
                                                                   Integer page, Integer pageSize) {
+        Pageable pageable = page != null && pageSize != null
+                ? PageRequest.of(Math.max(page - 1, 0), pageSize > 0 ? pageSize : 10)
+                : Pageable.unpaged();
         List<Activity> activities;
         Map<Integer, UserActivity> userActivityMap = new HashMap<>();
-        
-        // Step 1: Get activities based on userId presence
+        long total;
+
+        // Step 1-3: Filter by user's SIGNED_UP state and eventId and paginate in the database
         if (userId != null) {
-            // Get all activities the user has signed up for
-            List<UserActivity> userActivities = userActivityRepository.findByUserId(userId);
-            
-            // Filter to only SIGNED_UP activities that are not deleted
-            List<UserActivity> signedUpActivities = userActivities.stream()
-                    .filter(ua -> "SIGNED_UP".equals(ua.getState()) && 
-                                  (ua.getDeleted() == null || !ua.getDeleted()))
-                    .collect(Collectors.toList());
-            
-            // Create map for quick lookup
-            userActivityMap = signedUpActivities.stream()
-                    .collect(Collectors.toMap(UserActivity::getActivityId, ua -> ua));
-            
-            // Get activity IDs
-            List<Integer> activityIds = signedUpActivities.stream()
-                    .map(UserActivity::getActivityId)
-                    .collect(Collectors.toList());
-            
-            if (activityIds.isEmpty()) {
-                return new ArrayList<>();
+            // The user's record is joined in the same statement
+            Page<Object[]> rows = activityRepository.findSignedUpWithUserActivity(userId, eventId, pageable);
+            activities = new ArrayList<>();
+            for (Object[] row : rows.getContent()) {
+                Activity activity = (Activity) row[0];
+                activities.add(activity);
+                userActivityMap.putIfAbsent(activity.getId(), (UserActivity) row[1]);
             }
-            
-            // Get activities by IDs
-            activities = activityRepository.findAllById(activityIds);
+            total = rows.getTotalElements();
         } else {
-            // Get all activities
-            activities = activityRepository.findAll();
-        }
-        
-        // Step 2: Filter by eventId if provided
-        if (eventId != null) {
-            activities = activities.stream()
-                    .filter(activity -> eventId.equals(activity.getEventId()))
-                    .collect(Collectors.toList());
+            Pageable sortedPageable = pageable.isPaged()
+                    ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"))
+                    : Pageable.unpaged(Sort.by("id"));
+            Page<Activity> activityPage = eventId != null
+                    ? activityRepository.findByEventId(eventId, sortedPageable)
+                    : activityRepository.findAll(sortedPageable);
+            activities = activityPage.getContent();
+            total = activityPage.getTotalElements();
         }
-        
-        // Step 3: Apply pagination
-        if (page != null && pageSize != null) {
-            int startIndex = (page - 1) * pageSize;
-            int endIndex = Math.min(startIndex + pageSize, activities.size());
-            if (startIndex < activities.size()) {
-                activities = activities.subList(startIndex, endIndex);
-            } else {
-                activities = new ArrayList<>();
-            }
-        }
-        
-        // Step 4: Convert to DTOs with enhanced information
+
+        // Step 4: Load the counters for the page, only cache misses go to the database
+        Map<Integer, ActivityStatsDto> statsMap = statsCache.getActivityStats(
+                activities.stream().map(Activity::getId).collect(Collectors.toList()));
+
+        // Step 5: Convert to DTOs with enhanced information
         final Map<Integer, UserActivity> finalUserActivityMap = userActivityMap;
-        return activities.stream()
+        List<ActivityResponseDto> content = activities.stream()
                 .map(activity -> {
                     ActivityResponseDto dto = activityMapper.toResponseDto(activity);
 
-                    Integer totalParticipants = getTotalParticipants(activity.getId());
-                    Integer totalTime = calculateTotalTime(activity, totalParticipants);
-                    dto.setTotalParticipants(totalParticipants);
-                    dto.setTotalTime(totalTime);
+                    ActivityStatsDto stats = statsMap.get(activity.getId());
+                    dto.setTotalParticipants(stats != null ? stats.getTotalParticipants() : 0);
+                    dto.setTotalTime(stats != null ? stats.getTotalTime() : 0);
                     
                     // User activity details if userId was provided
                     if (userId != null) {
@@ -328,6 +346,7 @@ public class ActivityService{
                     return dto;
                 })
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, total);
     }
     
     /**
@@ -0,0 +1,258 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.BlockchainTransactionRequest;
+import com.blockchain.csr.model.dto.DonationDetailDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batching front of {@link BlockchainService}. Transactions are collected for a short window
+ * (or until the batch is full) and sent with one batch call; when the chain API has no batch endpoint
+ * they are sent one by one instead. Each caller gets a future completed with its own tx ID.
+ */
+@Component
+@Slf4j
+public class BlockchainBatchSubmitter {
+
+    private final BlockchainService blockchainService;
+    private final BlockingQueue<PendingTransaction> queue;
+    private final ThreadPoolExecutor senders;
+    private final Thread flusher;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final boolean batchEnabled;
+    private final long reprobeIntervalNanos;
+    private final int maxSplitDepth;
+
+    private final DistributionSummary batchSizes;
+    private final Timer queueWait;
+    private final Timer batchFlush;
+    private final Timer singleFlush;
+
+    private volatile boolean running = true;
+    private volatile boolean batchUnsupported;
+    private volatile long batchReprobeAt;
+
+    public BlockchainBatchSubmitter(BlockchainService blockchainService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${blockchain.batch.window-ms:50}") long windowMs,
+                                    @Value("${blockchain.batch.max-size:50}") int maxBatchSize,
+                                    @Value("${blockchain.batch.enabled:true}") boolean batchEnabled,
+                                    @Value("${blockchain.batch.reprobe-interval-ms:600000}") long reprobeIntervalMs,
+                                    @Value("${blockchain.batch.senders:2}") int senderThreads,
+                                    @Value("${blockchain.batch.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${blockchain.batch.max-split-depth:3}") int maxSplitDepth) {
+        this.blockchainService = blockchainService;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.batchEnabled = batchEnabled;
+        this.reprobeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reprobeIntervalMs);
+        this.maxSplitDepth = maxSplitDepth;
+
+        this.batchSizes = DistributionSummary.builder("blockchain.batch.size")
+                .description("Transactions per flush")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("blockchain.batch.wait")
+                .description("Time a transaction waited in the batching window")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchFlush = Timer.builder("blockchain.batch.flush")
+                .description("Time to send one flush to the chain")
+                .tag("mode", "batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.singleFlush = Timer.builder("blockchain.batch.flush")
+                .description("Time to send one flush to the chain")
+                .tag("mode", "single")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("blockchain.batch.queued", queue, BlockingQueue::size);
+
+        // A full sender pool makes the flusher send the batch itself; meanwhile new transactions
+        // keep queueing, so batches grow instead of requests piling up
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senderThreads), runnable -> {
+                    Thread thread = new Thread(runnable, "chain-batch-sender-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.flusher = new Thread(this::runFlusher, "chain-batch-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queue a donation transaction for the next flush
+     *
+     * @param userId the sender
+     * @param transaction the transaction content
+     * @param requestId the transaction uuid (kept across retries)
+     * @return future completed with the chain tx ID, or exceptionally if the submission failed
+     */
+    public CompletableFuture<String> submit(Integer userId, DonationDetailDTO transaction, String requestId) {
+        PendingTransaction pending = new PendingTransaction(
+                BlockchainTransactionRequest.donation(userId, transaction, requestId), new CompletableFuture<>(), System.nanoTime());
+        if (!running || !queue.offer(pending)) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Blockchain submission queue is full"));
+        }
+        return pending.future;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        senders.shutdown();
+        senders.awaitTermination(30, TimeUnit.SECONDS);
+
+        List<PendingTransaction> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.future.completeExceptionally(new RejectedExecutionException("Shutting down")));
+    }
+
+    private void runFlusher() {
+        while (running) {
+            try {
+                PendingTransaction first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingTransaction> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = first.enqueuedAt + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingTransaction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                senders.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Blockchain batch flusher error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void send(List<PendingTransaction> batch) {
+        long flushStart = System.nanoTime();
+        batchSizes.record(batch.size());
+        for (PendingTransaction pending : batch) {
+            queueWait.record(flushStart - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+
+        boolean batched = submit(batch, 0);
+        (batched ? batchFlush : singleFlush).record(System.nanoTime() - flushStart, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Send a batch. When the chain rejects it with a 4xx (other than 429), a bad transaction is assumed and
+     * the batch is split in halves, at most {@code blockchain.batch.max-split-depth} times, then sent one by one,
+     * so it cannot fail its neighbours. Anything else (open breaker, 429, 5xx, timeout or I/O error) says
+     * nothing about single transactions and may even have been accepted upstream, so the whole batch fails
+     * at once and the outbox retries it after its backoff.
+     *
+     * @param depth number of splits that led to this batch
+     * @return true if the transactions went out with batch calls
+     */
+    private boolean submit(List<PendingTransaction> batch, int depth) {
+        if (batch.size() > 1 && batchEnabled && (!batchUnsupported || System.nanoTime() - batchReprobeAt >= 0)) {
+            try {
+                List<String> txIds = blockchainService.createDonationTransactions(
+                        batch.stream().map(pending -> pending.request).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).future.complete(txIds.get(i));
+                }
+                batchUnsupported = false;
+                return true;
+            } catch (BlockchainService.BatchNotSupportedException e) {
+                batchUnsupported = true;
+                batchReprobeAt = System.nanoTime() + reprobeIntervalNanos;
+                log.info("{}; sending transactions one by one", e.getMessage());
+            } catch (Exception e) {
+                HttpClientErrorException rejection = itemRejection(e);
+                if (rejection == null) {
+                    log.warn("Blockchain batch of {} transactions failed: {}", batch.size(), e.getMessage());
+                    batch.forEach(pending -> pending.future.completeExceptionally(e));
+                    return true;
+                }
+                if (depth < maxSplitDepth) {
+                    log.warn("Blockchain batch of {} transactions rejected with {}; retrying in halves",
+                            batch.size(), rejection.getStatusCode());
+                    int middle = batch.size() / 2;
+                    submit(batch.subList(0, middle), depth + 1);
+                    submit(batch.subList(middle, batch.size()), depth + 1);
+                    return true;
+                }
+                log.warn("Blockchain batch of {} transactions rejected with {}; sending them one by one",
+                        batch.size(), rejection.getStatusCode());
+            }
+        }
+
+        // One call per transaction over the same keep-alive connection
+        for (int i = 0; i < batch.size(); i++) {
+            PendingTransaction pending = batch.get(i);
+            try {
+                pending.future.complete(blockchainService.createDonationTransaction(
+                        pending.request.getSender(), pending.request.getTransaction(), pending.request.getUuid()));
+            } catch (Exception e) {
+                pending.future.completeExceptionally(e);
+                if (itemRejection(e) == null) {
+                    // The chain is failing, not this transaction; don't wait on it once per remaining transaction
+                    batch.subList(i + 1, batch.size()).forEach(rest -> rest.future.completeExceptionally(e));
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A 4xx other than 429, possibly wrapped by {@link BlockchainService}, means the chain is up and refused
+     * specific content
+     *
+     * @return the 4xx, or null if the failure is not a rejection of the transactions themselves
+     */
+    private static HttpClientErrorException itemRejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException clientError) {
+                return clientError instanceof HttpClientErrorException.TooManyRequests ? null : clientError;
+            }
+        }
+        return null;
+    }
+
+    private record PendingTransaction(BlockchainTransactionRequest request, CompletableFuture<String> future, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.blockchain.csr.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead for calls to the blockchain API.
+ * <p>
+ * CLOSED: outcomes of the last {@code windowSize} calls are kept; once at least {@code minimumCalls} are recorded
+ * and the share of failed or slow calls reaches the threshold, the breaker opens.
+ * OPEN: calls fail immediately until {@code openDuration} has passed.
+ * HALF_OPEN: up to {@code halfOpenProbes} trial calls are let through; all succeeding closes the breaker,
+ * any failure opens it again.
+ * <p>
+ * Independently, at most {@code maxConcurrent} calls run at once; callers wait at most {@code bulkheadWait}
+ * for a slot and are rejected otherwise, so a slow chain node cannot tie up every request thread.
+ */
+@Component
+@Slf4j
+public class BlockchainCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown without calling the chain when the breaker is open or the bulkhead is full
+     */
+    public static class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException(String message) {
+            super(message);
+        }
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final int maxConcurrent;
+    private final long bulkheadWaitMs;
+    private final Semaphore bulkhead;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int outcomeCount;
+    private int failureCount;
+    private long openedAt;
+    // Bumped on every transition; a call's outcome only counts in the generation it was admitted in
+    private long generation;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public BlockchainCircuitBreaker(@Value("${blockchain.circuit.window-size:20}") int windowSize,
+                                    @Value("${blockchain.circuit.minimum-calls:10}") int minimumCalls,
+                                    @Value("${blockchain.circuit.failure-rate-threshold:50}") double failureRateThreshold,
+                                    @Value("${blockchain.circuit.slow-call-ms:5000}") long slowCallMs,
+                                    @Value("${blockchain.circuit.open-duration-ms:30000}") long openDurationMs,
+                                    @Value("${blockchain.circuit.half-open-probes:3}") int halfOpenProbes,
+                                    @Value("${blockchain.bulkhead.max-concurrent:20}") int maxConcurrent,
+                                    @Value("${blockchain.bulkhead.max-wait-ms:100}") long bulkheadWaitMs) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenProbes = halfOpenProbes;
+        this.maxConcurrent = maxConcurrent;
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Run a chain call under the bulkhead and breaker. Client errors (4xx) mean the chain node is healthy
+     * and count as successes; any other exception, and calls slower than the slow-call threshold, count as failures.
+     *
+     * @param call the HTTP call
+     * @return the call's result
+     * @throws CallNotPermittedException if the breaker is open or no bulkhead slot frees up in time
+     */
+    public <T> T execute(Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CallNotPermittedException("Interrupted while waiting for a blockchain call slot");
+        }
+        if (!acquired) {
+            rejectedCalls.incrementAndGet();
+            throw new CallNotPermittedException("Too many concurrent blockchain calls");
+        }
+
+        try {
+            long permittedIn = acquirePermission();
+            if (permittedIn < 0) {
+                rejectedCalls.incrementAndGet();
+                throw new CallNotPermittedException("Blockchain circuit breaker is open");
+            }
+
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                onResult(permittedIn, System.nanoTime() - start < slowCallNanos);
+                return result;
+            } catch (HttpClientErrorException e) {
+                onResult(permittedIn, System.nanoTime() - start < slowCallNanos);
+                throw e;
+            } catch (RuntimeException e) {
+                onResult(permittedIn, false);
+                throw e;
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Current breaker and bulkhead figures for the status endpoint
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("state", getState().name());
+        snapshot.put("failureRate", outcomeCount == 0 ? 0.0 : failureCount * 100.0 / outcomeCount);
+        snapshot.put("bufferedCalls", outcomeCount);
+        snapshot.put("failedCalls", failureCount);
+        snapshot.put("rejectedCalls", rejectedCalls.get());
+        snapshot.put("concurrentCalls", maxConcurrent - bulkhead.availablePermits());
+        snapshot.put("maxConcurrentCalls", maxConcurrent);
+        return snapshot;
+    }
+
+    /**
+     * @return the generation the call is permitted in, or -1 if it is rejected
+     */
+    private synchronized long acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                return -1;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return -1;
+            }
+            probesInFlight++;
+        }
+        return generation;
+    }
+
+    private synchronized void onResult(long permittedIn, boolean success) {
+        if (permittedIn != generation) {
+            // The breaker changed state while the call was running, possibly back to the same state
+            // (a probe outliving its HALF_OPEN period); its outcome belongs to the old generation
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (!success) {
+                transitionTo(State.OPEN);
+            } else if (++probeSuccesses >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+
+        if (outcomeCount == windowSize) {
+            if (!outcomes[outcomeIndex]) {
+                failureCount--;
+            }
+        } else {
+            outcomeCount++;
+        }
+        outcomes[outcomeIndex] = success;
+        if (!success) {
+            failureCount++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % windowSize;
+
+        if (outcomeCount >= minimumCalls && failureCount * 100.0 / outcomeCount >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("Blockchain circuit breaker {} -> {} (failed {}/{} recent calls)", state, newState, failureCount, outcomeCount);
+        state = newState;
+        generation++;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            outcomeIndex = 0;
+            outcomeCount = 0;
+            failureCount = 0;
+        }
+    }
+}
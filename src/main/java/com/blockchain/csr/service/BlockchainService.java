@@ -1,6 +1,10 @@
 package com.blockchain.csr.service;
 
+import com.blockchain.csr.model.dto.BlockchainTransactionRequest;
 import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.blockchain.csr.model.enums.ChainVerification;
+
+import java.util.List;
 
 /**
  * 区块链服务接口
@@ -16,6 +20,34 @@ public interface BlockchainService {
      * @return 区块链交易ID (chain ID)
      */
     String createDonationTransaction(Integer userId, DonationDetailDTO donationDetailDTO);
+
+    /**
+     * 为捐赠活动创建区块链交易（使用调用方提供的请求ID，重试时保持不变以便链端去重）
+     *
+     * @param userId            用户ID
+     * @param donationDetailDTO 交易内容
+     * @param requestId         请求ID（作为交易uuid）
+     * @return 区块链交易ID (chain ID)
+     */
+    String createDonationTransaction(Integer userId, DonationDetailDTO donationDetailDTO, String requestId);
+
+    /**
+     * 批量创建区块链交易（一次请求）
+     *
+     * @param requests 交易请求列表
+     * @return 区块链交易ID列表，与请求顺序一致
+     * @throws BatchNotSupportedException 如果区块链API不支持批量提交（404/405/501），调用方应逐笔提交
+     */
+    List<String> createDonationTransactions(List<BlockchainTransactionRequest> requests) throws BatchNotSupportedException;
+
+    /**
+     * The chain API has no batch endpoint; send the transactions one by one instead
+     */
+    class BatchNotSupportedException extends Exception {
+        public BatchNotSupportedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
     
     /**
      * 验证区块链交易
@@ -24,4 +56,12 @@ public interface BlockchainService {
      * @return 如果交易有效返回true，否则返回false
      */
     boolean verifyTransaction(String chainId);
+
+    /**
+     * 验证区块链交易，区分"无效"与"无法确认"（链不可达、熔断打开等）
+     *
+     * @param chainId 区块链交易ID
+     * @return VALID / INVALID / UNKNOWN
+     */
+    ChainVerification checkTransaction(String chainId);
 } 
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.ChainVerifyResponse;
+import com.blockchain.csr.model.enums.ChainVerification;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches chain verification results in front of {@link BlockchainService#checkTransaction(String)}.
+ * A transaction that verified once stays valid, so VALID is kept until evicted by size; INVALID
+ * (possibly not confirmed yet) and UNKNOWN (chain unreachable) are kept only briefly.
+ * Bulk lookups verify the misses on a small shared pool with a bounded queue, so audits never exceed
+ * its parallelism and a backlog of audits cannot pile up unbounded work behind it.
+ */
+@Component
+@Slf4j
+public class BlockchainVerificationCache {
+
+    private final BlockchainService blockchainService;
+    private final Cache<String, ChainVerification> cache;
+    private final ExecutorService verifiers;
+    private final int maxBulkSize;
+    private final long bulkTimeoutMs;
+
+    public BlockchainVerificationCache(BlockchainService blockchainService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${blockchain.verify.cache-max-size:200000}") long maxSize,
+                                       @Value("${blockchain.verify.invalid-ttl-seconds:60}") long invalidTtlSeconds,
+                                       @Value("${blockchain.verify.unknown-ttl-seconds:10}") long unknownTtlSeconds,
+                                       @Value("${blockchain.verify.parallelism:8}") int parallelism,
+                                       @Value("${blockchain.verify.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${blockchain.verify.max-bulk-size:5000}") int maxBulkSize,
+                                       @Value("${blockchain.verify.bulk-timeout-ms:60000}") long bulkTimeoutMs) {
+        this.blockchainService = blockchainService;
+        this.maxBulkSize = maxBulkSize;
+        this.bulkTimeoutMs = bulkTimeoutMs;
+
+        long invalidTtlNanos = TimeUnit.SECONDS.toNanos(invalidTtlSeconds);
+        long unknownTtlNanos = TimeUnit.SECONDS.toNanos(unknownTtlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, ChainVerification>() {
+                    @Override
+                    public long expireAfterCreate(String chainId, ChainVerification result, long currentTime) {
+                        return switch (result) {
+                            case VALID -> Long.MAX_VALUE;
+                            case INVALID -> invalidTtlNanos;
+                            case UNKNOWN -> unknownTtlNanos;
+                        };
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chainId, ChainVerification result, long currentTime, long currentDuration) {
+                        return expireAfterCreate(chainId, result, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chainId, ChainVerification result, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "blockchain.verification");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.verifiers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "chain-verifier-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Verify one transaction, answering from the cache when possible
+     */
+    public ChainVerification verify(String chainId) {
+        return cache.get(chainId, blockchainService::checkTransaction);
+    }
+
+    /**
+     * Verify many transactions. Cached answers are returned directly; the misses are verified
+     * concurrently, at most {@code blockchain.verify.parallelism} at a time across all callers.
+     * Misses still running after {@code blockchain.verify.bulk-timeout-ms} are cancelled and reported as UNKNOWN,
+     * as are misses that do not fit in the queue ({@code blockchain.verify.queue-capacity}).
+     *
+     * @throws IllegalArgumentException if more than {@code blockchain.verify.max-bulk-size} IDs are given
+     */
+    public ChainVerifyResponse verifyAll(Collection<String> chainIds) {
+        long start = System.currentTimeMillis();
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String chainId : chainIds) {
+            if (chainId != null && !chainId.isBlank()) {
+                distinct.add(chainId.trim());
+            }
+        }
+        if (distinct.size() > maxBulkSize) {
+            throw new IllegalArgumentException("At most " + maxBulkSize + " chain IDs can be verified at once");
+        }
+
+        Map<String, ChainVerification> results = new LinkedHashMap<>(cache.getAllPresent(distinct));
+        int cacheHits = results.size();
+
+        Map<String, Future<ChainVerification>> pending = new LinkedHashMap<>();
+        int rejected = 0;
+        for (String chainId : distinct) {
+            if (!results.containsKey(chainId)) {
+                try {
+                    pending.put(chainId, verifiers.submit(() -> verify(chainId)));
+                } catch (RejectedExecutionException e) {
+                    results.put(chainId, ChainVerification.UNKNOWN);
+                    rejected++;
+                }
+            }
+        }
+        if (rejected > 0) {
+            log.warn("Verification queue is full, {} chain IDs are reported as UNKNOWN", rejected);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(bulkTimeoutMs);
+        int timedOut = 0;
+        for (Map.Entry<String, Future<ChainVerification>> entry : pending.entrySet()) {
+            Future<ChainVerification> future = entry.getValue();
+            ChainVerification result = ChainVerification.UNKNOWN;
+            try {
+                result = future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Frees the worker (or the queue slot) instead of finishing work nobody waits for
+                future.cancel(true);
+                timedOut++;
+            } catch (ExecutionException e) {
+                log.error("Verification of {} failed: {}", entry.getKey(), e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+            }
+            results.put(entry.getKey(), result);
+        }
+        if (timedOut > 0) {
+            log.warn("Bulk verification timed out after {} ms, {} unfinished chain IDs are reported as UNKNOWN", bulkTimeoutMs, timedOut);
+        }
+
+        // Keep the request order in the response
+        Map<String, ChainVerification> ordered = new LinkedHashMap<>();
+        int valid = 0, invalid = 0, unknown = 0;
+        for (String chainId : distinct) {
+            ChainVerification result = results.get(chainId);
+            ordered.put(chainId, result);
+            switch (result) {
+                case VALID -> valid++;
+                case INVALID -> invalid++;
+                case UNKNOWN -> unknown++;
+            }
+        }
+
+        long durationMs = System.currentTimeMillis() - start;
+        log.info("Verified {} chain IDs ({} from cache, {} from chain) in {} ms: {} valid, {} invalid, {} unknown",
+                distinct.size(), cacheHits, pending.size(), durationMs, valid, invalid, unknown);
+        return ChainVerifyResponse.builder()
+                .results(ordered)
+                .valid(valid)
+                .invalid(invalid)
+                .unknown(unknown)
+                .cacheHits(cacheHits)
+                .verified(pending.size())
+                .durationMs(durationMs)
+                .build();
+    }
+
+    @PreDestroy
+    void stop() {
+        verifiers.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.blockchain.csr.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Business counters: signups, withdrawals and chain submissions. Events raised inside a transaction
+ * are counted after it commits, so rolled-back requests do not show up.
+ */
+@Component
+public class BusinessMetrics {
+
+    private final Counter signups;
+    private final Counter withdrawals;
+    private final Counter chainQueued;
+    private final Counter chainSent;
+    private final Counter chainRetried;
+    private final Counter chainFailed;
+
+    public BusinessMetrics(MeterRegistry meterRegistry) {
+        this.signups = Counter.builder("csr.signups")
+                .description("Activity signups, including re-signups after a withdrawal")
+                .register(meterRegistry);
+        this.withdrawals = Counter.builder("csr.withdrawals")
+                .description("Activity withdrawals")
+                .register(meterRegistry);
+        this.chainQueued = chainSubmissions(meterRegistry, "queued");
+        this.chainSent = chainSubmissions(meterRegistry, "sent");
+        this.chainRetried = chainSubmissions(meterRegistry, "retry");
+        this.chainFailed = chainSubmissions(meterRegistry, "failed");
+    }
+
+    private static Counter chainSubmissions(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("csr.chain.submissions")
+                .description("Chain submissions by result: queued in the outbox, sent, failed and rescheduled, or given up")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public void signup() {
+        afterCommit(signups);
+    }
+
+    public void withdrawal() {
+        afterCommit(withdrawals);
+    }
+
+    public void chainQueued() {
+        afterCommit(chainQueued);
+    }
+
+    public void chainSent() {
+        chainSent.increment();
+    }
+
+    /**
+     * @param retryScheduled false when the attempt limit is reached and the row is marked FAILED
+     */
+    public void chainAttemptFailed(boolean retryScheduled) {
+        (retryScheduled ? chainRetried : chainFailed).increment();
+    }
+
+    private void afterCommit(Counter counter) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.increment();
+                }
+            });
+        } else {
+            counter.increment();
+        }
+    }
+}
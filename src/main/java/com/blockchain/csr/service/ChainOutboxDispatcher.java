@@ -0,0 +1,115 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.blockchain.csr.model.entity.ChainOutbox;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the chain outbox: claims due rows, hands them to the batching submitter with a bounded number
+ * in flight and reschedules failures with exponential backoff. No database connection is held during the HTTP call.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChainOutboxDispatcher {
+
+    private final ChainOutboxService chainOutboxService;
+    private final BlockchainBatchSubmitter blockchainBatchSubmitter;
+    private final BusinessMetrics businessMetrics;
+
+    @Value("${blockchain.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${blockchain.outbox.concurrency:50}")
+    private int concurrency;
+
+    @Value("${blockchain.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${blockchain.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${blockchain.outbox.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${blockchain.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${blockchain.outbox.in-flight-timeout-ms:120000}")
+    private long inFlightTimeoutMs;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void start() {
+        permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Claim as many due rows as there are free submission slots and hand them to the batching submitter
+     */
+    @Scheduled(fixedDelayString = "${blockchain.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        int free = Math.min(permits.availablePermits(), batchSize);
+        if (free == 0) {
+            return;
+        }
+
+        List<ChainOutbox> claimed = chainOutboxService.claimDue(free, Duration.ofMillis(inFlightTimeoutMs));
+        for (ChainOutbox outbox : claimed) {
+            permits.acquireUninterruptibly();
+            DonationDetailDTO transaction = new DonationDetailDTO(outbox.getComment(), outbox.getAmount());
+            blockchainBatchSubmitter.submit(outbox.getUserId(), transaction, outbox.getRequestId())
+                    .whenComplete((chainId, error) -> {
+                        try {
+                            complete(outbox, chainId, error);
+                        } catch (Exception e) {
+                            // The row stays IN_FLIGHT and is reclaimed after the in-flight timeout
+                            log.error("Could not record chain submission {}: {}", outbox.getId(), e.getMessage(), e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+        }
+    }
+
+    private void complete(ChainOutbox outbox, String chainId, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            Duration retryAfter = outbox.getAttempts() >= maxAttempts ? null : backoff(outbox.getAttempts());
+            log.warn("Chain submission {} for user activity {} failed (attempt {}), retry in {}: {}",
+                    outbox.getId(), outbox.getUserActivityId(), outbox.getAttempts(), retryAfter, cause.getMessage());
+            chainOutboxService.markAttemptFailed(outbox.getId(), cause.getMessage(), retryAfter);
+            businessMetrics.chainAttemptFailed(retryAfter != null);
+            return;
+        }
+        chainOutboxService.markSent(outbox.getId(), chainId);
+        businessMetrics.chainSent();
+        log.info("Chain submission {} for user activity {} sent with chainId: {}",
+                outbox.getId(), outbox.getUserActivityId(), chainId);
+    }
+
+    /**
+     * initialBackoff * 2^(attempts - 1), capped at maxBackoff, with +/-20% jitter so retries after an outage spread out
+     */
+    private Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        long delay = Math.min(initialBackoffMs * (1L << exponent), maxBackoffMs);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (delay * jitter));
+    }
+}
@@ -0,0 +1,184 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.entity.ChainOutbox;
+import com.blockchain.csr.model.entity.UserActivity;
+import com.blockchain.csr.model.enums.ChainOutboxStatus;
+import com.blockchain.csr.model.enums.ChainState;
+import com.blockchain.csr.repository.ChainOutboxRepository;
+import com.blockchain.csr.repository.UserActivityRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Transactional side of the blockchain outbox: enqueueing submissions together with the detail
+ * they belong to, claiming due rows and recording results back into the detail
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class ChainOutboxService {
+
+    private final ChainOutboxRepository chainOutboxRepository;
+    private final UserActivityRepository userActivityRepository;
+    private final ObjectMapper objectMapper;
+    private final BusinessMetrics businessMetrics;
+
+    /**
+     * Queue a chain submission for a user activity detail. Must run in the transaction that stores the detail.
+     *
+     * @param userActivity the user activity the detail belongs to
+     * @param amount the amount recorded on chain (donation amount or activity duration)
+     * @param comment the detail comment
+     * @return the outbox row
+     */
+    public ChainOutbox enqueue(UserActivity userActivity, BigDecimal amount, String comment) {
+        LocalDateTime now = now();
+        ChainOutbox outbox = new ChainOutbox();
+        outbox.setUserActivityId(userActivity.getId());
+        outbox.setUserId(userActivity.getUserId());
+        outbox.setAmount(amount);
+        outbox.setComment(comment);
+        outbox.setRequestId(UUID.randomUUID().toString());
+        outbox.setNextAttemptAt(now);
+        outbox.setCreatedAt(now);
+        outbox.setUpdatedAt(now);
+        businessMetrics.chainQueued();
+        return chainOutboxRepository.save(outbox);
+    }
+
+    /**
+     * Claim up to {@code limit} due rows for this node
+     *
+     * @param limit maximum rows to claim
+     * @param inFlightTimeout IN_FLIGHT rows older than this are considered abandoned and reclaimed
+     * @return the claimed rows
+     */
+    public List<ChainOutbox> claimDue(int limit, Duration inFlightTimeout) {
+        LocalDateTime now = now();
+        LocalDateTime staleBefore = now.minus(inFlightTimeout);
+        List<ChainOutbox> claimed = new ArrayList<>();
+        for (Long id : chainOutboxRepository.findDueIds(now, staleBefore, PageRequest.of(0, limit))) {
+            if (chainOutboxRepository.claim(id, now, staleBefore) == 1) {
+                chainOutboxRepository.findById(id).ifPresent(claimed::add);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Record a successful submission and write the chain ID into the detail
+     *
+     * @param id the outbox row ID
+     * @param chainId the chain transaction ID
+     */
+    public void markSent(Long id, String chainId) {
+        ChainOutbox outbox = chainOutboxRepository.findById(id).orElse(null);
+        if (outbox == null) {
+            return;
+        }
+        outbox.setStatus(ChainOutboxStatus.SENT.getValue());
+        outbox.setChainId(chainId);
+        outbox.setLockedAt(null);
+        outbox.setLastError(null);
+        outbox.setUpdatedAt(now());
+        updateDetail(outbox, chainId, ChainState.SENT);
+    }
+
+    /**
+     * Record a failed attempt
+     *
+     * @param id the outbox row ID
+     * @param error the failure message
+     * @param retryAfter delay before the next attempt, or null to give up
+     */
+    public void markAttemptFailed(Long id, String error, Duration retryAfter) {
+        ChainOutbox outbox = chainOutboxRepository.findById(id).orElse(null);
+        if (outbox == null) {
+            return;
+        }
+        LocalDateTime now = now();
+        outbox.setLockedAt(null);
+        outbox.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        outbox.setUpdatedAt(now);
+        if (retryAfter != null) {
+            outbox.setStatus(ChainOutboxStatus.PENDING.getValue());
+            outbox.setNextAttemptAt(now.plus(retryAfter));
+        } else {
+            outbox.setStatus(ChainOutboxStatus.FAILED.getValue());
+            updateDetail(outbox, null, ChainState.FAILED);
+            log.error("Giving up chain submission {} for user activity {} after {} attempts: {}",
+                    outbox.getId(), outbox.getUserActivityId(), outbox.getAttempts(), error);
+        }
+    }
+
+    /**
+     * Put all FAILED rows back in the queue
+     *
+     * @return number of rows re-queued
+     */
+    public int requeueFailed() {
+        return chainOutboxRepository.requeueFailed(now());
+    }
+
+    /**
+     * Count outbox rows by status
+     *
+     * @return counts keyed by status
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ChainOutboxStatus status : ChainOutboxStatus.values()) {
+            counts.put(status.getValue(), 0L);
+        }
+        for (Object[] row : chainOutboxRepository.countGroupByStatus()) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Write the result into the detail. The row is locked first: a user saving a new detail holds that lock
+     * until their transaction, which also queues the new submission, commits. The locking reads then see
+     * both, so this result is dropped instead of being merged into the detail it replaced.
+     */
+    private void updateDetail(ChainOutbox outbox, String chainId, ChainState chainState) {
+        UserActivity userActivity = userActivityRepository.findByIdForUpdate(outbox.getUserActivityId()).orElse(null);
+        if (userActivity == null || userActivity.getDetail() == null) {
+            return;
+        }
+        // A newer detail has its own submission; don't overwrite it with this result
+        if (!chainOutboxRepository.findNewerForUpdate(outbox.getUserActivityId(), outbox.getId()).isEmpty()) {
+            return;
+        }
+
+        LinkedHashMap<String, Object> detail = objectMapper.convertValue(userActivity.getDetail(),
+                new TypeReference<LinkedHashMap<String, Object>>() {});
+        if (chainId != null) {
+            detail.put("chainId", chainId);
+        }
+        detail.put("chainState", chainState.getValue());
+        userActivity.setDetail(detail);
+        userActivityRepository.save(userActivity);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
+    }
+}
@@ -0,0 +1,334 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.ChainReprocessProgress;
+import com.blockchain.csr.model.entity.Activity;
+import com.blockchain.csr.model.entity.ChainReprocessJob;
+import com.blockchain.csr.model.entity.UserActivity;
+import com.blockchain.csr.model.enums.ChainOutboxStatus;
+import com.blockchain.csr.model.enums.ChainReprocessStatus;
+import com.blockchain.csr.model.enums.ChainState;
+import com.blockchain.csr.repository.ActivityRepository;
+import com.blockchain.csr.repository.ChainReprocessJobRepository;
+import com.blockchain.csr.repository.UserActivityRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Background job that finds user activity details (non-donation templates) without a chain ID and
+ * queues their submission in the chain outbox, which sends them with bounded concurrency and retries.
+ * Candidates are paged by ID cursor; each page's outbox rows, PENDING detail markers and the job
+ * checkpoint commit together, so a restarted or adopted job continues after the last committed page
+ * without queueing a row twice.
+ */
+@Service
+@Slf4j
+public class ChainReprocessService {
+
+    private final UserActivityRepository userActivityRepository;
+    private final ActivityRepository activityRepository;
+    private final ChainReprocessJobRepository chainReprocessJobRepository;
+    private final ChainOutboxService chainOutboxService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService runner;
+    // Identifies this node as the owner of the job it runs
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${blockchain.reprocess.page-size:200}")
+    private int pageSize;
+
+    @Value("${blockchain.reprocess.max-outstanding:500}")
+    private long maxOutstanding;
+
+    @Value("${blockchain.reprocess.stale-after-ms:120000}")
+    private long staleAfterMs;
+
+    private volatile Long runningJobId;
+    private volatile boolean cancelRequested;
+
+    public ChainReprocessService(UserActivityRepository userActivityRepository,
+                                 ActivityRepository activityRepository,
+                                 ChainReprocessJobRepository chainReprocessJobRepository,
+                                 ChainOutboxService chainOutboxService,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.userActivityRepository = userActivityRepository;
+        this.activityRepository = activityRepository;
+        this.chainReprocessJobRepository = chainReprocessJobRepository;
+        this.chainOutboxService = chainOutboxService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chain-reprocess");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start a new job, or report the one already running
+     *
+     * @return progress of the running job
+     */
+    public synchronized ChainReprocessProgress start() {
+        ChainReprocessJob running = chainReprocessJobRepository
+                .findFirstByStatusOrderByIdDesc(ChainReprocessStatus.RUNNING.getValue()).orElse(null);
+        if (running != null) {
+            // Adopts it if its node died, otherwise it is already being worked on
+            adoptStaleJob();
+            return toProgress(running.getId());
+        }
+
+        LocalDateTime now = now();
+        ChainReprocessJob job = new ChainReprocessJob();
+        job.setOwner(nodeId);
+        job.setStartedAt(now);
+        job.setUpdatedAt(now);
+        job = chainReprocessJobRepository.save(job);
+        log.info("Started chain reprocessing job {}", job.getId());
+        launch(job.getId());
+        return toProgress(job.getId());
+    }
+
+    /**
+     * Cancel the running job. Whichever node runs it stops after its current page.
+     *
+     * @return progress of the cancelled job, or null if no job is running
+     */
+    public synchronized ChainReprocessProgress cancel() {
+        ChainReprocessJob running = chainReprocessJobRepository
+                .findFirstByStatusOrderByIdDesc(ChainReprocessStatus.RUNNING.getValue()).orElse(null);
+        if (running == null) {
+            return null;
+        }
+        if (running.getId().equals(runningJobId)) {
+            cancelRequested = true;
+        }
+        transactionTemplate.executeWithoutResult(status -> chainReprocessJobRepository.finish(
+                running.getId(), null, ChainReprocessStatus.CANCELLED.getValue(), null, now()));
+        log.info("Cancelled chain reprocessing job {}", running.getId());
+        return toProgress(running.getId());
+    }
+
+    /**
+     * Report progress of the latest job
+     *
+     * @return progress, or null if no job ever ran
+     */
+    public ChainReprocessProgress getProgress() {
+        return chainReprocessJobRepository.findFirstByOrderByIdDesc()
+                .map(job -> toProgress(job.getId()))
+                .orElse(null);
+    }
+
+    /**
+     * Resume a job left RUNNING by a node that stopped (including this one before a restart)
+     * once its heartbeat is older than {@code blockchain.reprocess.stale-after-ms}
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${blockchain.reprocess.takeover-check-ms:60000}")
+    public synchronized void adoptStaleJob() {
+        if (runningJobId != null) {
+            return;
+        }
+        ChainReprocessJob running = chainReprocessJobRepository
+                .findFirstByStatusOrderByIdDesc(ChainReprocessStatus.RUNNING.getValue()).orElse(null);
+        if (running == null) {
+            return;
+        }
+        LocalDateTime now = now();
+        Integer adopted = transactionTemplate.execute(status -> chainReprocessJobRepository.adopt(
+                running.getId(), nodeId, now.minus(Duration.ofMillis(staleAfterMs)), now));
+        if (adopted != null && adopted == 1) {
+            log.info("Resuming chain reprocessing job {} after user activity {}", running.getId(), running.getLastUserActivityId());
+            launch(running.getId());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        // The job stays RUNNING and is resumed from its checkpoint once its heartbeat goes stale
+        cancelRequested = true;
+        runner.shutdownNow();
+    }
+
+    private void launch(Long jobId) {
+        runningJobId = jobId;
+        cancelRequested = false;
+        runner.execute(() -> {
+            try {
+                run(jobId);
+            } catch (Exception e) {
+                log.error("Chain reprocessing job {} failed: {}", jobId, e.getMessage(), e);
+                String error = e.getMessage() != null && e.getMessage().length() > 500 ? e.getMessage().substring(0, 500) : e.getMessage();
+                transactionTemplate.executeWithoutResult(status -> chainReprocessJobRepository.finish(
+                        jobId, nodeId, ChainReprocessStatus.FAILED.getValue(), error, now()));
+            } finally {
+                if (jobId.equals(runningJobId)) {
+                    runningJobId = null;
+                }
+            }
+        });
+    }
+
+    private void run(Long jobId) throws InterruptedException {
+        Integer cursor = chainReprocessJobRepository.findById(jobId)
+                .map(ChainReprocessJob::getLastUserActivityId)
+                .orElse(null);
+        while (cursor != null && !cancelRequested) {
+            if (!awaitOutboxCapacity(jobId)) {
+                return;
+            }
+            final Integer from = cursor;
+            cursor = transactionTemplate.execute(status -> {
+                Integer next = processPage(jobId, from);
+                if (next == null) {
+                    status.setRollbackOnly();
+                }
+                return next;
+            });
+            if (cursor != null && cursor.equals(from)) {
+                transactionTemplate.executeWithoutResult(status -> chainReprocessJobRepository.finish(
+                        jobId, nodeId, ChainReprocessStatus.COMPLETED.getValue(), null, now()));
+                log.info("Chain reprocessing job {} completed", jobId);
+                return;
+            }
+        }
+        log.info("Chain reprocessing job {} stopped on this node", jobId);
+    }
+
+    /**
+     * Queue submissions for one page of candidates and move the checkpoint past them
+     *
+     * @return the new cursor, the same cursor if there are no more candidates,
+     * or null if the job was cancelled or taken over (the page must be rolled back)
+     */
+    private Integer processPage(Long jobId, Integer afterId) {
+        List<UserActivity> page = userActivityRepository.findChainReprocessBatch(afterId, PageRequest.of(0, pageSize));
+        if (page.isEmpty()) {
+            return chainReprocessJobRepository.heartbeat(jobId, nodeId, now()) == 1 ? afterId : null;
+        }
+
+        Map<Integer, Activity> activities = activityRepository.findAllById(
+                        page.stream().map(UserActivity::getActivityId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Activity::getId, Function.identity()));
+
+        long queued = 0;
+        long skipped = 0;
+        long unparseable = 0;
+        for (UserActivity userActivity : page) {
+            LinkedHashMap<String, Object> detail;
+            try {
+                detail = objectMapper.convertValue(userActivity.getDetail(), new TypeReference<LinkedHashMap<String, Object>>() {});
+            } catch (IllegalArgumentException e) {
+                log.warn("Cannot read detail of user activity {}: {}", userActivity.getId(), e.getMessage());
+                unparseable++;
+                continue;
+            }
+            if (detail == null || detail.get("chainId") != null
+                    || ChainState.PENDING.getValue().equals(detail.get("chainState"))) {
+                skipped++;
+                continue;
+            }
+
+            Activity activity = activities.get(userActivity.getActivityId());
+            Object comment = detail.get("comment");
+            if (activity == null || comment == null) {
+                skipped++;
+                continue;
+            }
+            // The amount on chain is the detail amount if present, otherwise the activity duration
+            BigDecimal amount = UserActivity.parseDonationAmount(detail);
+            if (amount == null && activity.getDuration() != null) {
+                amount = BigDecimal.valueOf(activity.getDuration());
+            }
+            if (amount == null) {
+                skipped++;
+                continue;
+            }
+
+            // Dirty checking writes the marker back, so the next scan skips this row
+            detail.put("chainState", ChainState.PENDING.getValue());
+            userActivity.setDetail(detail);
+            chainOutboxService.enqueue(userActivity, amount, comment.toString());
+            queued++;
+        }
+
+        Integer to = page.get(page.size() - 1).getId();
+        int advanced = chainReprocessJobRepository.advance(jobId, nodeId, afterId, to,
+                page.size(), queued, skipped, unparseable, now());
+        return advanced == 1 ? to : null;
+    }
+
+    /**
+     * Wait while the outbox already holds {@code blockchain.reprocess.max-outstanding} unsent rows,
+     * so the backlog doesn't delay submissions of new signups for long
+     *
+     * @return false if the job was cancelled or taken over meanwhile
+     */
+    private boolean awaitOutboxCapacity(Long jobId) throws InterruptedException {
+        while (!cancelRequested) {
+            Map<String, Long> counts = chainOutboxService.countByStatus();
+            long outstanding = counts.getOrDefault(ChainOutboxStatus.PENDING.getValue(), 0L)
+                    + counts.getOrDefault(ChainOutboxStatus.IN_FLIGHT.getValue(), 0L);
+            if (outstanding < maxOutstanding) {
+                return true;
+            }
+            Integer alive = transactionTemplate.execute(status -> chainReprocessJobRepository.heartbeat(jobId, nodeId, now()));
+            if (alive == null || alive == 0) {
+                return false;
+            }
+            TimeUnit.SECONDS.sleep(1);
+        }
+        return false;
+    }
+
+    private ChainReprocessProgress toProgress(Long jobId) {
+        ChainReprocessJob job = chainReprocessJobRepository.findById(jobId).orElseThrow();
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : now();
+        double seconds = Math.max(Duration.between(job.getStartedAt(), end).toMillis() / 1000.0, 0.001);
+        return ChainReprocessProgress.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .lastUserActivityId(job.getLastUserActivityId())
+                .scanned(job.getScanned())
+                .queued(job.getQueued())
+                .skipped(job.getSkipped())
+                .unparseable(job.getUnparseable())
+                .ratePerSecond(Math.round(job.getScanned() / seconds * 10) / 10.0)
+                .startedAt(job.getStartedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .lastError(job.getLastError())
+                .outbox(chainOutboxService.countByStatus())
+                .build();
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.entity.UserActivity;
+import com.blockchain.csr.repository.UserActivityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills user_activity.donation_amount for donation records written before the column existed,
+ * so the SQL donation totals match what the old per-row summing produced
+ */
+@Service
+@Slf4j
+public class DonationAmountBackfillService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final UserActivityRepository userActivityRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public DonationAmountBackfillService(UserActivityRepository userActivityRepository,
+                                         PlatformTransactionManager transactionManager) {
+        this.userActivityRepository = userActivityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs before the participation stats seeding, which relies on the extracted amounts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        int afterId = 0;
+        int filled = 0;
+        int malformed = 0;
+        while (true) {
+            final int cursor = afterId;
+            List<UserActivity> batch = transactionTemplate.execute(status -> {
+                List<UserActivity> records = userActivityRepository.findDonationAmountBackfillBatch(cursor, PageRequest.of(0, BATCH_SIZE));
+                // Dirty checking writes the extracted amount back on commit; the flag keeps rows
+                // without a valid amount from being scanned again on the next start
+                records.forEach(record -> {
+                    record.setDonationAmount(UserActivity.parseDonationAmount(record.getDetail()));
+                    record.setDonationAmountExtracted(true);
+                });
+                return records;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            for (UserActivity record : batch) {
+                if (record.getDonationAmount() != null) {
+                    filled++;
+                } else {
+                    malformed++;
+                }
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+
+        if (filled > 0 || malformed > 0) {
+            log.info("Backfilled donation_amount for {} user activities, {} without a valid amount", filled, malformed);
+        }
+    }
+}
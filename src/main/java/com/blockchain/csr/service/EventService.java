@@ -1,23 +1,28 @@
 package com.blockchain.csr.service;
 
-import com.blockchain.csr.model.dto.BasicDetailDTO;
+import com.blockchain.csr.model.dto.ActivityStatsDto;
+import com.blockchain.csr.model.dto.EventStatsDto;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import com.blockchain.csr.model.entity.ActivityStats;
 import com.blockchain.csr.model.entity.Event;
+import com.blockchain.csr.model.entity.EventStats;
 import com.blockchain.csr.model.entity.Activity;
-import com.blockchain.csr.model.entity.UserActivity;
-import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.blockchain.csr.repository.ActivityStatsRepository;
 import com.blockchain.csr.repository.EventRepository;
 import com.blockchain.csr.repository.ActivityRepository;
+import com.blockchain.csr.repository.EventStatsRepository;
 import com.blockchain.csr.repository.UserActivityRepository;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.math.BigDecimal;
 /**
@@ -32,7 +37,8 @@ public class EventService{
     private final EventRepository eventRepository;
     private final ActivityRepository activityRepository;
     private final UserActivityRepository userActivityRepository;
-    private final ActivityDetailFactory activityDetailFactory;
+    private final EventStatsRepository eventStatsRepository;
+    private final ActivityStatsRepository activityStatsRepository;
 
     public int insert(Event record) {
         // Set created_at to current system time
@@ -48,8 +54,9 @@ public class EventService{
      * @return number of unique signed up participants
      */
     public Integer getTotalParticipants(Integer eventId) {
-        Integer count = userActivityRepository.countUniqueSignedUpParticipantsByEventId(eventId);
-        return count != null ? count : 0;
+        return eventStatsRepository.findById(eventId)
+                .map(EventStats::getParticipants)
+                .orElse(0);
     }
 
     /**
@@ -79,42 +86,160 @@ public class EventService{
      * @return total donation amount
      */
     public BigDecimal calculateTotalAmount(Integer eventId) {
-        List<Activity> activities = activityRepository.findByEventId(eventId);
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        
-        // Collect all activity IDs that have templateId = 2 (donation activities)
-        List<Integer> donationActivityIds = activities.stream()
-                .filter(activity -> activity.getTemplateId() != null && activity.getTemplateId().equals(2))
-                .map(Activity::getId)
+        return toAmountMap(userActivityRepository.sumDonationAmountGroupByEventId(List.of(eventId)))
+                .getOrDefault(eventId, BigDecimal.ZERO);
+    }
+
+    /**
+     * Get participants, time and donation totals for a page of events from the denormalized stats tables.
+     * Costs two primary-key style lookups regardless of how many events or activities are on the page.
+     *
+     * @param eventIds the event IDs
+     * @return stats keyed by event ID (every requested ID is present, zero-filled when there is no data)
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, EventStatsDto> getEventStats(List<Integer> eventIds) {
+        Map<Integer, EventStatsDto> result = emptyEventStats(eventIds);
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        for (EventStats stats : eventStatsRepository.findAllById(eventIds)) {
+            EventStatsDto eventStats = result.get(stats.getEventId());
+            eventStats.setTotalParticipants(stats.getParticipants());
+            eventStats.setTotalTime(stats.getTotalMinutes());
+            eventStats.setTotalAmount(stats.getTotalAmount());
+        }
+
+        for (ActivityStats stats : activityStatsRepository.findByEventIdIn(eventIds)) {
+            EventStatsDto eventStats = result.get(stats.getEventId());
+            if (eventStats != null) {
+                eventStats.getActivityStats().put(stats.getActivityId(), ActivityStatsDto.builder()
+                        .activityId(stats.getActivityId())
+                        .eventId(stats.getEventId())
+                        .totalParticipants(stats.getParticipants())
+                        .totalTime(stats.getTotalMinutes())
+                        .totalAmount(stats.getTotalAmount())
+                        .build());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Load the activities of a page of events in one query
+     *
+     * @param eventIds the event IDs
+     * @return activities grouped by event ID (events without activities are absent)
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, List<Activity>> getActivitiesByEventIds(List<Integer> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Map.of();
+        }
+        return activityRepository.findByEventIdIn(eventIds).stream()
+                .collect(Collectors.groupingBy(Activity::getEventId));
+    }
+
+    /**
+     * Calculate participants, time and donation totals for a page of events directly from user_activity.
+     * Runs a fixed number of grouped queries regardless of how many events or activities are on the page;
+     * used to build and repair the denormalized stats tables.
+     *
+     * @param eventIds the event IDs
+     * @return stats keyed by event ID (every requested ID is present, zero-filled when there is no data)
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, EventStatsDto> calculateEventStats(List<Integer> eventIds) {
+        Map<Integer, EventStatsDto> result = emptyEventStats(eventIds);
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        List<Activity> activities = getActivitiesByEventIds(eventIds).values().stream()
+                .flatMap(List::stream)
                 .collect(Collectors.toList());
-        
-        // If no donation activities, return zero
-        if (donationActivityIds.isEmpty()) {
-            return totalAmount;
+        if (activities.isEmpty()) {
+            return result;
         }
-        
-        // Get all user activities for donation activities with SIGNED_UP state in one database call
-        List<UserActivity> userActivities = userActivityRepository.findByActivityIdInAndState(donationActivityIds, "SIGNED_UP");
-        
-        // Process all user activities to sum up the amounts
-        for (UserActivity userActivity : userActivities) {
-            try {
-                BasicDetailDTO detail = activityDetailFactory.createDetail(2, userActivity.getDetail());
-                if (detail != null && detail instanceof DonationDetailDTO) {
-                    DonationDetailDTO donationDetail = (DonationDetailDTO) detail;
-                    BigDecimal amount = donationDetail.getAmount();
-                    
-                    if (amount != null) {
-                        totalAmount = totalAmount.add(amount);
-                    }
-                }
-            } catch (Exception e) {
-                // Skip invalid detail conversion errors and continue processing
-                log.warn("Failed to process donation detail for user activity {}: {}", userActivity.getId(), e.getMessage());
+
+        List<Integer> activityIds = activities.stream()
+                .map(Activity::getId)
+                .collect(Collectors.toList());
+        Map<Integer, Integer> participantsByActivity =
+                toCountMap(userActivityRepository.countSignedUpParticipantsGroupByActivityId(activityIds));
+        Map<Integer, Integer> participantsByEvent =
+                toCountMap(userActivityRepository.countUniqueSignedUpParticipantsGroupByEventId(eventIds));
+        Map<Integer, BigDecimal> amountByActivity =
+                toAmountMap(userActivityRepository.sumDonationAmountGroupByActivityId(activityIds));
+
+        for (Activity activity : activities) {
+            EventStatsDto eventStats = result.get(activity.getEventId());
+            if (eventStats == null) {
                 continue;
             }
+
+            int participants = participantsByActivity.getOrDefault(activity.getId(), 0);
+            int time = activity.getDuration() != null ? participants * activity.getDuration() : 0;
+            BigDecimal amount = amountByActivity.getOrDefault(activity.getId(), BigDecimal.ZERO);
+
+            eventStats.getActivityStats().put(activity.getId(), ActivityStatsDto.builder()
+                    .activityId(activity.getId())
+                    .eventId(activity.getEventId())
+                    .totalParticipants(participants)
+                    .totalTime(time)
+                    .totalAmount(amount)
+                    .build());
+            eventStats.setTotalTime(eventStats.getTotalTime() + time);
+            eventStats.setTotalAmount(eventStats.getTotalAmount().add(amount));
         }
-        
-        return totalAmount;
+
+        participantsByEvent.forEach((eventId, count) -> {
+            EventStatsDto eventStats = result.get(eventId);
+            if (eventStats != null) {
+                eventStats.setTotalParticipants(count);
+            }
+        });
+
+        return result;
+    }
+
+    private Map<Integer, EventStatsDto> emptyEventStats(List<Integer> eventIds) {
+        Map<Integer, EventStatsDto> result = new HashMap<>();
+        if (eventIds == null) {
+            return result;
+        }
+        for (Integer eventId : eventIds) {
+            result.put(eventId, EventStatsDto.builder()
+                    .eventId(eventId)
+                    .totalParticipants(0)
+                    .totalTime(0)
+                    .totalAmount(BigDecimal.ZERO)
+                    .activityStats(new HashMap<>())
+                    .build());
+        }
+        return result;
+    }
+
+    private Map<Integer, BigDecimal> toAmountMap(List<Object[]> rows) {
+        Map<Integer, BigDecimal> result = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                result.put((Integer) row[0], (BigDecimal) row[1]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Convert grouped [id, count] rows into a map
+     */
+    private Map<Integer, Integer> toCountMap(List<Object[]> rows) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
     }
 }
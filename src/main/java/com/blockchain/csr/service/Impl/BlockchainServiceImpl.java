@@ -2,21 +2,30 @@ package com.blockchain.csr.service.Impl;
 
 import com.blockchain.csr.model.dto.BlockchainTransactionRequest;
 import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.blockchain.csr.model.enums.ChainVerification;
+import com.blockchain.csr.service.BlockchainCircuitBreaker;
 import com.blockchain.csr.service.BlockchainService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.ResourceAccessException;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * 区块链服务实现类
@@ -27,13 +36,23 @@ import java.util.UUID;
 @Slf4j
 public class BlockchainServiceImpl implements BlockchainService {
 
-    private final RestTemplate restTemplate;
+    private final RestTemplate blockchainRestTemplate;
+    private final BlockchainCircuitBreaker blockchainCircuitBreaker;
+    private final MeterRegistry meterRegistry;
 
     @Value("${blockchain.api.base-url:http://localhost:8081}")
     private String blockchainApiBaseUrl;
 
+    @Value("${blockchain.batch.path:/api/transactions/batch}")
+    private String blockchainBatchPath;
+
     @Override
     public String createDonationTransaction(Integer userId, DonationDetailDTO donationDetailDTO) {
+        return createDonationTransaction(userId, donationDetailDTO, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public String createDonationTransaction(Integer userId, DonationDetailDTO donationDetailDTO, String requestId) {
         try {
             log.info("Creating blockchain transaction for donation - userId: {}, activityId: {}, amount: {}", 
                     userId, donationDetailDTO.getAmount(), donationDetailDTO.getComment());
@@ -46,23 +65,17 @@ public class BlockchainServiceImpl implements BlockchainService {
             headers.setContentType(MediaType.APPLICATION_JSON);
 
             // 构建请求体 - 使用BlockchainTransactionRequest DTO
-            BlockchainTransactionRequest requestDTO = BlockchainTransactionRequest.builder()
-                .sender(userId)
-                .recipient("admin")
-                .endorser("admin")
-                .transaction(donationDetailDTO)
-                .uuid(UUID.randomUUID().toString())
-                .build();
+            BlockchainTransactionRequest requestDTO = BlockchainTransactionRequest.donation(userId, donationDetailDTO, requestId);
 
             HttpEntity<BlockchainTransactionRequest> request = new HttpEntity<>(requestDTO, headers);
 
             // 调用第三方区块链API
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = timed("add", () -> blockchainRestTemplate.exchange(
                     url,
                     HttpMethod.POST,
                     request,
                     String.class
-            );
+            ));
 
             // 添加响应日志
             log.info("Blockchain API response status: {}, body: {}", response.getStatusCode(), response.getBody());
@@ -81,6 +94,9 @@ public class BlockchainServiceImpl implements BlockchainService {
                 throw new RuntimeException("Blockchain service returned error status: " + response.getStatusCode());
             }
 
+        } catch (BlockchainCircuitBreaker.CallNotPermittedException e) {
+            log.warn("Blockchain call rejected: {}", e.getMessage());
+            throw e;
         } catch (ResourceAccessException e) {
             log.error("Failed to connect to blockchain service: {}", e.getMessage(), e);
             throw new RuntimeException("Blockchain service is unavailable", e);
@@ -90,8 +106,46 @@ public class BlockchainServiceImpl implements BlockchainService {
         }
     }
 
+    @Override
+    public List<String> createDonationTransactions(List<BlockchainTransactionRequest> requests) throws BatchNotSupportedException {
+        String url = blockchainApiBaseUrl + blockchainBatchPath;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<List<BlockchainTransactionRequest>> request = new HttpEntity<>(requests, headers);
+
+        try {
+            ResponseEntity<List<String>> response = timed("batch", () -> blockchainRestTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    request,
+                    new ParameterizedTypeReference<List<String>>() {}
+            ));
+
+            List<String> txIds = response.getBody();
+            if (txIds == null || txIds.size() != requests.size()) {
+                throw new RuntimeException("Blockchain batch API returned " + (txIds == null ? 0 : txIds.size())
+                        + " tx ids for " + requests.size() + " transactions");
+            }
+            log.info("Created {} blockchain transactions in one batch", txIds.size());
+            return txIds;
+
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed
+                 | HttpServerErrorException.NotImplemented e) {
+            throw new BatchNotSupportedException("Blockchain API does not support batch submission: " + e.getStatusCode(), e);
+        } catch (ResourceAccessException e) {
+            log.error("Failed to connect to blockchain service: {}", e.getMessage(), e);
+            throw new RuntimeException("Blockchain service is unavailable", e);
+        }
+    }
+
     @Override
     public boolean verifyTransaction(String chainId) {
+        return checkTransaction(chainId) == ChainVerification.VALID;
+    }
+
+    @Override
+    public ChainVerification checkTransaction(String chainId) {
         try {
             log.info("Verifying blockchain transaction with chainId: {}", chainId);
 
@@ -105,12 +159,12 @@ public class BlockchainServiceImpl implements BlockchainService {
             HttpEntity<Void> request = new HttpEntity<>(headers);
 
             // 调用第三方区块链API验证交易
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = timed("verify", () -> blockchainRestTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     request,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -118,22 +172,62 @@ public class BlockchainServiceImpl implements BlockchainService {
                 
                 if (isValid != null) {
                     log.info("Transaction verification result for chainId {}: {}", chainId, isValid);
-                    return isValid;
+                    return isValid ? ChainVerification.VALID : ChainVerification.INVALID;
                 } else {
                     log.error("Blockchain API returned null verification result");
-                    return false;
+                    return ChainVerification.UNKNOWN;
                 }
             } else {
                 log.error("Blockchain API returned non-success status for verification: {}", response.getStatusCode());
-                return false;
+                return ChainVerification.UNKNOWN;
             }
 
+        } catch (HttpClientErrorException.NotFound e) {
+            log.info("Transaction not found on chain for chainId {}", chainId);
+            return ChainVerification.INVALID;
+        } catch (BlockchainCircuitBreaker.CallNotPermittedException e) {
+            log.warn("Blockchain verification rejected: {}", e.getMessage());
+            return ChainVerification.UNKNOWN;
         } catch (ResourceAccessException e) {
             log.error("Failed to connect to blockchain service for verification: {}", e.getMessage(), e);
-            return false;
+            return ChainVerification.UNKNOWN;
         } catch (Exception e) {
             log.error("Error verifying blockchain transaction: {}", e.getMessage(), e);
-            return false;
+            return ChainVerification.UNKNOWN;
+        }
+    }
+
+    /**
+     * Run a chain call through the circuit breaker, timed as blockchain.calls by operation and result.
+     * Rejections by the breaker or bulkhead are recorded too, with the (short) time spent waiting for a slot.
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
+        try {
+            return blockchainCircuitBreaker.execute(call);
+        } catch (BlockchainCircuitBreaker.CallNotPermittedException e) {
+            result = "rejected";
+            throw e;
+        } catch (HttpClientErrorException e) {
+            result = "client_error";
+            throw e;
+        } catch (HttpServerErrorException e) {
+            result = "server_error";
+            throw e;
+        } catch (ResourceAccessException e) {
+            result = "io_error";
+            throw e;
+        } catch (RuntimeException e) {
+            result = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("blockchain.calls")
+                    .description("Blockchain API calls")
+                    .tag("operation", operation)
+                    .tag("result", result)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,17 +1,15 @@
 package com.blockchain.csr.service.Impl;
 
+import com.blockchain.csr.config.AuthenticatedUser;
 import com.blockchain.csr.repository.UserRepository;
 import com.blockchain.csr.model.entity.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -28,10 +26,6 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
         log.debug("User found: {} with role: {}", user.getUsername(), user.getRole());
-        return new org.springframework.security.core.userdetails.User(
-            user.getUsername(),
-            user.getPassword(),
-            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
-        );
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), "ROLE_" + user.getRole());
     }
 } 
\ No newline at end of file
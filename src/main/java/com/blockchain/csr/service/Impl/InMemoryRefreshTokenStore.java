@@ -0,0 +1,129 @@
+package com.blockchain.csr.service.Impl;
+
+import com.blockchain.csr.service.RefreshTokenStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Refresh tokens held in this JVM only: lost on restart and not shared between nodes.
+ * A per-user index makes revoking all of a user's tokens proportional to that user's tokens, and
+ * tokens are also filed in one-minute expiry buckets so the purge drops whole elapsed buckets
+ * instead of scanning every token.
+ */
+@Service
+@ConditionalOnProperty(name = "security.refresh-token.store", havingValue = "memory")
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+
+    private static final long BUCKET_MILLIS = 60_000;
+
+    private final Map<String, StoredToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    // Bucket number -> token hashes expiring within that minute
+    private final ConcurrentNavigableMap<Long, Set<String>> expiryBuckets = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void save(String tokenHash, String username, Instant expiresAt) {
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        tokens.put(tokenHash, new StoredToken(username, expiresAtMillis));
+        // Added inside compute so a concurrent unindex can't drop the set in between
+        tokensByUser.compute(username, (key, hashes) -> {
+            Set<String> userTokens = hashes != null ? hashes : ConcurrentHashMap.newKeySet();
+            userTokens.add(tokenHash);
+            return userTokens;
+        });
+        // Rounded up, so a bucket only elapses once all its tokens have expired
+        expiryBuckets.computeIfAbsent(bucketOf(expiresAtMillis + BUCKET_MILLIS - 1), key -> ConcurrentHashMap.newKeySet())
+                .add(tokenHash);
+    }
+
+    @Override
+    public String findUsername(String tokenHash) {
+        StoredToken token = tokens.get(tokenHash);
+        if (token == null || token.expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+        return token.username;
+    }
+
+    @Override
+    public void remove(String tokenHash) {
+        StoredToken token = tokens.remove(tokenHash);
+        if (token != null) {
+            unindexUser(token.username, tokenHash);
+            Set<String> bucket = expiryBuckets.get(bucketOf(token.expiresAtMillis + BUCKET_MILLIS - 1));
+            if (bucket != null) {
+                bucket.remove(tokenHash);
+            }
+        }
+    }
+
+    @Override
+    public void removeAllForUser(String username) {
+        Set<String> userTokens = tokensByUser.remove(username);
+        if (userTokens == null) {
+            return;
+        }
+        for (String tokenHash : userTokens) {
+            StoredToken token = tokens.remove(tokenHash);
+            if (token != null) {
+                Set<String> bucket = expiryBuckets.get(bucketOf(token.expiresAtMillis + BUCKET_MILLIS - 1));
+                if (bucket != null) {
+                    bucket.remove(tokenHash);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        long currentBucket = bucketOf(System.currentTimeMillis());
+        int purged = 0;
+        Map.Entry<Long, Set<String>> oldest;
+        while ((oldest = expiryBuckets.firstEntry()) != null && oldest.getKey() <= currentBucket) {
+            expiryBuckets.remove(oldest.getKey());
+            for (String tokenHash : oldest.getValue()) {
+                StoredToken token = tokens.remove(tokenHash);
+                if (token != null) {
+                    unindexUser(token.username, tokenHash);
+                    purged++;
+                }
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * Number of stored tokens, expired ones included until purged
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    private void unindexUser(String username, String tokenHash) {
+        tokensByUser.computeIfPresent(username, (key, hashes) -> {
+            hashes.remove(tokenHash);
+            return hashes.isEmpty() ? null : hashes;
+        });
+    }
+
+    private static long bucketOf(long epochMillis) {
+        return epochMillis / BUCKET_MILLIS;
+    }
+
+    private static final class StoredToken {
+        private final String username;
+        private final long expiresAtMillis;
+
+        private StoredToken(String username, long expiresAtMillis) {
+            this.username = username;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.blockchain.csr.service.Impl;
+
+import com.blockchain.csr.model.entity.RefreshToken;
+import com.blockchain.csr.repository.RefreshTokenRepository;
+import com.blockchain.csr.service.RefreshTokenStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Refresh tokens in the refresh_token table, shared by all nodes. Lookups go through the unique
+ * token_hash index; expired rows are ignored on lookup and deleted in batches by the purge.
+ */
+@Service
+@ConditionalOnProperty(name = "security.refresh-token.store", havingValue = "db", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int purgeBatchSize;
+
+    public JpaRefreshTokenStore(RefreshTokenRepository refreshTokenRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${security.refresh-token.purge-batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    @Transactional
+    public void save(String tokenHash, String username, Instant expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(tokenHash);
+        token.setUsername(username);
+        token.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZONE));
+        token.setCreatedAt(LocalDateTime.now(ZONE));
+        refreshTokenRepository.save(token);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String findUsername(String tokenHash) {
+        return refreshTokenRepository.findUsernameByTokenHash(tokenHash, LocalDateTime.now(ZONE)).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public void remove(String tokenHash) {
+        refreshTokenRepository.deleteByTokenHash(tokenHash);
+    }
+
+    @Override
+    @Transactional
+    public void removeAllForUser(String username) {
+        refreshTokenRepository.deleteByUsername(username);
+    }
+
+    /**
+     * Deletes in short transactions of {@code security.refresh-token.purge-batch-size} rows
+     * so the purge never holds locks on a large range
+     */
+    @Override
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(ZONE);
+        int purged = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, purgeBatchSize));
+                refreshTokenRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            if (deleted == null || deleted == 0) {
+                return purged;
+            }
+            purged += deleted;
+        }
+    }
+}
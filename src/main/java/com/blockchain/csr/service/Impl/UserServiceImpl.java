@@ -20,7 +20,10 @@ import jakarta.persistence.criteria.Predicate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +37,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    /**
+     * Fields the user list may be sorted by
+     */
+    private static final Set<String> SORTABLE_FIELDS = Set.of(
+            "id", "username", "role", "location", "nickname", "realName", "gender", "createTime");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
@@ -145,12 +154,16 @@ public class UserServiceImpl implements UserService {
         int currentPage = page != null && page > 0 ? page - 1 : 0; // Convert to 0-based index
         int size = pageSize != null && pageSize > 0 ? pageSize : 10;
         
-        // Create sort
+        // Create sort (only plain columns, so the database can sort)
         Sort sort = Sort.unsorted();
         if (StringUtils.hasText(sortField)) {
-            Sort.Direction direction = "descend".equalsIgnoreCase(sortOrder) ? 
-                Sort.Direction.DESC : Sort.Direction.ASC;
-            sort = Sort.by(direction, sortField);
+            if (SORTABLE_FIELDS.contains(sortField)) {
+                Sort.Direction direction = "descend".equalsIgnoreCase(sortOrder) ? 
+                    Sort.Direction.DESC : Sort.Direction.ASC;
+                sort = Sort.by(direction, sortField);
+            } else {
+                log.warn("Ignoring unsupported user list sort field: {}", sortField);
+            }
         }
         
         // Create pageable
@@ -162,9 +175,20 @@ public class UserServiceImpl implements UserService {
         // Get page data
         Page<User> userPage = userRepository.findAll(spec, pageable);
         
+        // Load event and activity counts for the whole page with one grouped query each
+        List<Integer> userIds = userPage.getContent().stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+        Map<Integer, Integer> eventCounts = userIds.isEmpty() ? Map.of() :
+                toCountMap(userRepository.countEventsGroupByUserId(userIds));
+        Map<Integer, Integer> activityCounts = userIds.isEmpty() ? Map.of() :
+                toCountMap(userRepository.countActivitiesGroupByUserId(userIds));
+        
         // Convert to DTOs
         List<UserDto> userDtos = userPage.getContent().stream()
-                .map(this::convertToUserDto)
+                .map(user -> convertToUserDto(user,
+                        eventCounts.getOrDefault(user.getId(), 0),
+                        activityCounts.getOrDefault(user.getId(), 0)))
                 .collect(Collectors.toList());
         
         return UserListResponse.builder()
@@ -309,8 +333,6 @@ public class UserServiceImpl implements UserService {
     }
 
     private UserDto convertToUserDto(User user) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        
         // Get event and activity counts (with null checks)
         Integer eventCount = 0;
         Integer activityCount = 0;
@@ -328,6 +350,12 @@ public class UserServiceImpl implements UserService {
             log.warn("Failed to get activity count for user {}: {}", user.getId(), e.getMessage());
         }
 
+        return convertToUserDto(user, eventCount, activityCount);
+    }
+
+    private UserDto convertToUserDto(User user, Integer eventCount, Integer activityCount) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
         // Convert role to lowercase string
         String roleDesc = UserRole.ADMIN.toString().equals(user.getRole()) ? "admin" : "user";
         
@@ -347,6 +375,14 @@ public class UserServiceImpl implements UserService {
                 .build();
     }
 
+    private Map<Integer, Integer> toCountMap(List<Object[]> rows) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        return result;
+    }
+
     @Override
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username).orElse(null);
@@ -0,0 +1,328 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.ActivityStatsDto;
+import com.blockchain.csr.model.dto.EventStatsDto;
+import com.blockchain.csr.model.dto.StatsRebuildReport;
+import com.blockchain.csr.model.entity.Activity;
+import com.blockchain.csr.model.entity.ActivityStats;
+import com.blockchain.csr.model.entity.Event;
+import com.blockchain.csr.model.entity.EventStats;
+import com.blockchain.csr.model.entity.UserActivity;
+import com.blockchain.csr.repository.ActivityStatsRepository;
+import com.blockchain.csr.repository.EventRepository;
+import com.blockchain.csr.repository.EventStatsRepository;
+import com.blockchain.csr.repository.UserActivityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the denormalized activity_stats / event_stats counters.
+ * Signup, withdraw and detail updates apply deltas inside the caller's transaction;
+ * the rebuild job recomputes everything from user_activity and reports drift.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class ParticipationStatsService {
+
+    private static final int REBUILD_PAGE_SIZE = 200;
+    private static final int MAX_DRIFT_SAMPLES = 50;
+
+    private final ActivityStatsRepository activityStatsRepository;
+    private final EventStatsRepository eventStatsRepository;
+    private final UserActivityRepository userActivityRepository;
+    private final EventRepository eventRepository;
+    private final EventService eventService;
+    private final PlatformTransactionManager transactionManager;
+    private final StatsCache statsCache;
+
+    /**
+     * Apply a new (or re-activated) SIGNED_UP record to the counters.
+     * Must be called after the record has been saved so the event-level uniqueness check sees it,
+     * and with the user's row locked (see {@code UserRepository.findByIdForUpdate}) so concurrent
+     * signups of the same user to one event cannot both count as their first.
+     *
+     * @param activity the activity signed up for
+     * @param userId the user ID
+     * @param detail the detail carried by the record (re-activated records may already have one)
+     */
+    public void onSignup(Activity activity, Integer userId, Serializable detail) {
+        int minutes = activity.getDuration() != null ? activity.getDuration() : 0;
+        BigDecimal amount = donationAmount(activity, detail);
+        activityStatsRepository.applyDelta(activity.getId(), activity.getEventId(), 1, minutes, amount);
+
+        if (activity.getEventId() != null) {
+            // The user only counts towards the event once, on their first active signup in it
+            int signups = userActivityRepository.findSignedUpByUserIdAndEventIdForUpdate(userId, activity.getEventId()).size();
+            int participants = signups == 1 ? 1 : 0;
+            eventStatsRepository.applyDelta(activity.getEventId(), participants, minutes, amount);
+        }
+        statsCache.evictAfterCommit(activity.getId(), activity.getEventId());
+    }
+
+    /**
+     * Remove withdrawn records from the counters.
+     * Must be called after the records have been saved so the event-level uniqueness check sees them,
+     * and with the user's row locked like {@link #onSignup}.
+     *
+     * @param activity the activity withdrawn from
+     * @param userId the user ID
+     * @param withdrawnRecords the records that were SIGNED_UP before the withdrawal
+     */
+    public void onWithdraw(Activity activity, Integer userId, List<UserActivity> withdrawnRecords) {
+        if (withdrawnRecords.isEmpty()) {
+            return;
+        }
+
+        int count = withdrawnRecords.size();
+        int minutes = activity.getDuration() != null ? count * activity.getDuration() : 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (UserActivity record : withdrawnRecords) {
+            amount = amount.add(donationAmount(activity, record.getDetail()));
+        }
+        activityStatsRepository.applyDelta(activity.getId(), activity.getEventId(), -count, -minutes, amount.negate());
+
+        if (activity.getEventId() != null) {
+            // The user leaves the event only when no other active signup in it remains
+            int signups = userActivityRepository.findSignedUpByUserIdAndEventIdForUpdate(userId, activity.getEventId()).size();
+            int participants = signups == 0 ? -1 : 0;
+            eventStatsRepository.applyDelta(activity.getEventId(), participants, -minutes, amount.negate());
+        }
+        statsCache.evictAfterCommit(activity.getId(), activity.getEventId());
+    }
+
+    /**
+     * Apply a detail change of a SIGNED_UP record (only donation amounts affect the counters)
+     *
+     * @param activity the activity
+     * @param oldDetail the detail before the update
+     * @param newDetail the detail after the update
+     */
+    public void onDetailUpdated(Activity activity, Serializable oldDetail, Serializable newDetail) {
+        BigDecimal delta = donationAmount(activity, newDetail).subtract(donationAmount(activity, oldDetail));
+        if (delta.signum() == 0) {
+            return;
+        }
+
+        activityStatsRepository.applyDelta(activity.getId(), activity.getEventId(), 0, 0, delta);
+        if (activity.getEventId() != null) {
+            eventStatsRepository.applyDelta(activity.getEventId(), 0, 0, delta);
+        }
+        statsCache.evictAfterCommit(activity.getId(), activity.getEventId());
+    }
+
+    /**
+     * Recompute the counters of the given events from user_activity and overwrite the stored rows
+     *
+     * @param eventIds the event IDs
+     * @return drift found while refreshing
+     */
+    public StatsRebuildReport refreshEvents(List<Integer> eventIds) {
+        long start = System.currentTimeMillis();
+        RebuildProgress progress = new RebuildProgress();
+        refreshPage(eventIds, progress);
+        return progress.toReport(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Recompute all counters from user_activity, one page of events per transaction
+     *
+     * @return drift found during the rebuild
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StatsRebuildReport rebuildAll() {
+        long start = System.currentTimeMillis();
+        RebuildProgress progress = new RebuildProgress();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        int page = 0;
+        Page<Event> events;
+        do {
+            events = eventRepository.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE, Sort.by("id")));
+            List<Integer> eventIds = events.getContent().stream()
+                    .map(Event::getId)
+                    .collect(Collectors.toList());
+            if (!eventIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> refreshPage(eventIds, progress));
+            }
+        } while (events.hasNext());
+
+        StatsRebuildReport report = progress.toReport(System.currentTimeMillis() - start);
+        if (report.getEventsDrifted() > 0 || report.getActivitiesDrifted() > 0) {
+            log.warn("Participation stats drift repaired - events: {}, activities: {}, samples: {}",
+                    report.getEventsDrifted(), report.getActivitiesDrifted(), report.getDriftSamples());
+        }
+        log.info("Participation stats rebuilt - events: {}, activities: {}, duration: {} ms",
+                report.getEventsChecked(), report.getActivitiesChecked(), report.getDurationMs());
+        return report;
+    }
+
+    /**
+     * Nightly repair of the counters
+     */
+    @Scheduled(cron = "${stats.rebuild.cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void scheduledRebuild() {
+        try {
+            rebuildAll();
+        } catch (Exception e) {
+            log.error("Scheduled participation stats rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the counters on first start, before any signup delta is applied to an empty table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void seedIfEmpty() {
+        if (eventStatsRepository.count() == 0 && eventRepository.count() > 0) {
+            log.info("Participation stats tables are empty, building them from user_activity");
+            rebuildAll();
+        }
+    }
+
+    private void refreshPage(List<Integer> eventIds, RebuildProgress progress) {
+        Map<Integer, EventStatsDto> live = eventService.calculateEventStats(eventIds);
+        Map<Integer, EventStats> storedEvents = eventStatsRepository.findAllById(eventIds).stream()
+                .collect(Collectors.toMap(EventStats::getEventId, Function.identity()));
+        Map<Integer, ActivityStats> storedActivities = activityStatsRepository.findByEventIdIn(eventIds).stream()
+                .collect(Collectors.toMap(ActivityStats::getActivityId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
+        List<EventStats> eventRows = new ArrayList<>();
+        List<ActivityStats> activityRows = new ArrayList<>();
+
+        for (EventStatsDto eventStats : live.values()) {
+            EventStats row = storedEvents.getOrDefault(eventStats.getEventId(), new EventStats());
+            progress.eventsChecked++;
+            if (differs(row.getParticipants(), row.getTotalMinutes(), row.getTotalAmount(),
+                    eventStats.getTotalParticipants(), eventStats.getTotalTime(), eventStats.getTotalAmount())) {
+                progress.eventsDrifted++;
+                progress.sample("event " + eventStats.getEventId() + ": " + describe(row.getParticipants(), row.getTotalMinutes(),
+                        row.getTotalAmount(), eventStats.getTotalParticipants(), eventStats.getTotalTime(), eventStats.getTotalAmount()));
+            }
+            row.setEventId(eventStats.getEventId());
+            row.setParticipants(eventStats.getTotalParticipants());
+            row.setTotalMinutes(eventStats.getTotalTime());
+            row.setTotalAmount(eventStats.getTotalAmount());
+            row.setUpdatedAt(now);
+            eventRows.add(row);
+
+            for (ActivityStatsDto activityStats : eventStats.getActivityStats().values()) {
+                ActivityStats activityRow = storedActivities.remove(activityStats.getActivityId());
+                if (activityRow == null) {
+                    activityRow = new ActivityStats();
+                }
+                progress.activitiesChecked++;
+                if (differs(activityRow.getParticipants(), activityRow.getTotalMinutes(), activityRow.getTotalAmount(),
+                        activityStats.getTotalParticipants(), activityStats.getTotalTime(), activityStats.getTotalAmount())) {
+                    progress.activitiesDrifted++;
+                    progress.sample("activity " + activityStats.getActivityId() + ": " + describe(activityRow.getParticipants(),
+                            activityRow.getTotalMinutes(), activityRow.getTotalAmount(), activityStats.getTotalParticipants(),
+                            activityStats.getTotalTime(), activityStats.getTotalAmount()));
+                }
+                activityRow.setActivityId(activityStats.getActivityId());
+                activityRow.setEventId(activityStats.getEventId());
+                activityRow.setParticipants(activityStats.getTotalParticipants());
+                activityRow.setTotalMinutes(activityStats.getTotalTime());
+                activityRow.setTotalAmount(activityStats.getTotalAmount());
+                activityRow.setUpdatedAt(now);
+                activityRows.add(activityRow);
+            }
+        }
+
+        // Rows left over belong to activities that were deleted or moved to another event
+        if (!storedActivities.isEmpty()) {
+            progress.activitiesDrifted += storedActivities.size();
+            storedActivities.keySet().forEach(activityId -> progress.sample("activity " + activityId + ": stale row removed"));
+            activityStatsRepository.deleteAll(storedActivities.values());
+        }
+
+        eventStatsRepository.saveAll(eventRows);
+        activityStatsRepository.saveAll(activityRows);
+
+        List<Integer> touchedActivityIds = new ArrayList<>(storedActivities.keySet());
+        activityRows.forEach(row -> touchedActivityIds.add(row.getActivityId()));
+        statsCache.evictAfterCommit(eventIds, touchedActivityIds);
+    }
+
+    private BigDecimal donationAmount(Activity activity, Serializable detail) {
+        if (activity.getTemplateId() == null || activity.getTemplateId() != 2 || detail == null) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal amount = UserActivity.parseDonationAmount(detail);
+        if (amount == null) {
+            log.warn("Ignoring donation detail without a valid amount for activity {}", activity.getId());
+            return BigDecimal.ZERO;
+        }
+        return amount;
+    }
+
+    private boolean differs(Integer participants, Integer minutes, BigDecimal amount,
+                            Integer expectedParticipants, Integer expectedMinutes, BigDecimal expectedAmount) {
+        return !Objects.equals(participants, expectedParticipants)
+                || !Objects.equals(minutes, expectedMinutes)
+                || amount == null || expectedAmount == null
+                || amount.compareTo(expectedAmount) != 0;
+    }
+
+    private String describe(Integer participants, Integer minutes, BigDecimal amount,
+                            Integer expectedParticipants, Integer expectedMinutes, BigDecimal expectedAmount) {
+        return "participants " + participants + " -> " + expectedParticipants
+                + ", minutes " + minutes + " -> " + expectedMinutes
+                + ", amount " + amount + " -> " + expectedAmount;
+    }
+
+    /**
+     * Mutable counters shared across the pages of a rebuild
+     */
+    private static class RebuildProgress {
+        private int eventsChecked;
+        private int activitiesChecked;
+        private int eventsDrifted;
+        private int activitiesDrifted;
+        private final List<String> samples = new ArrayList<>();
+
+        private void sample(String drift) {
+            if (samples.size() < MAX_DRIFT_SAMPLES) {
+                samples.add(drift);
+            }
+        }
+
+        private StatsRebuildReport toReport(long durationMs) {
+            return StatsRebuildReport.builder()
+                    .eventsChecked(eventsChecked)
+                    .activitiesChecked(activitiesChecked)
+                    .eventsDrifted(eventsDrifted)
+                    .activitiesDrifted(activitiesDrifted)
+                    .driftSamples(samples)
+                    .durationMs(durationMs)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.entity.Photo;
+import com.blockchain.csr.repository.PhotoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves photos saved as base64 text into the photo store. Runs in the background after startup,
+ * one photo per transaction so only a single image is held in memory at a time; photos requested
+ * before the job reaches them are migrated on first read
+ */
+@Service
+@Slf4j
+public class PhotoMigrationService {
+
+    private final PhotoRepository photoRepository;
+    private final PhotoStorageService photoStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService runner;
+
+    @Value("${photo.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${photo.migration.batch-size:20}")
+    private int batchSize;
+
+    public PhotoMigrationService(PhotoRepository photoRepository,
+                                 PhotoStorageService photoStorageService,
+                                 PlatformTransactionManager transactionManager) {
+        this.photoRepository = photoRepository;
+        this.photoStorageService = photoStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "photo-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            runner.execute(this::migrateAll);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        // Unfinished rows keep their base64 content and are picked up again on the next start
+        runner.shutdownNow();
+    }
+
+    private void migrateAll() {
+        long afterId = 0L;
+        int migrated = 0;
+        int failed = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> ids = photoRepository.findLegacyContentIds(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                try {
+                    if (migrate(id)) {
+                        migrated++;
+                    } else {
+                        failed++;
+                    }
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("Failed to migrate photo {}: {}", id, e.getMessage());
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (migrated > 0 || failed > 0) {
+            log.info("Moved {} photos to the photo store, {} left as base64", migrated, failed);
+        }
+    }
+
+    /**
+     * Store the decoded bytes of one legacy photo and clear its base64 column
+     * @param id photo ID
+     * @return true if the photo now has stored content, false if it is missing or its content can't be decoded
+     */
+    public boolean migrate(Long id) {
+        Photo photo = photoRepository.findById(id).orElse(null);
+        if (photo == null) {
+            return false;
+        }
+        if (photo.getContentHash() != null) {
+            return true;
+        }
+        String content = photo.getContent();
+        if (content == null) {
+            return false;
+        }
+
+        // Some clients saved a data URI ("data:image/png;base64,...") rather than bare base64
+        String type = null;
+        if (content.startsWith("data:")) {
+            int comma = content.indexOf(',');
+            if (comma < 0) {
+                log.warn("Photo {} has a data URI without payload", id);
+                return false;
+            }
+            String header = content.substring(5, comma);
+            int semicolon = header.indexOf(';');
+            type = semicolon >= 0 ? header.substring(0, semicolon) : header;
+            content = content.substring(comma + 1);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(content);
+        } catch (IllegalArgumentException e) {
+            log.warn("Photo {} does not hold valid base64 content: {}", id, e.getMessage());
+            return false;
+        }
+
+        PhotoStorageService.StoredPhoto stored;
+        try {
+            stored = photoStorageService.store(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store photo " + id, e);
+        }
+        String contentType = type == null || type.isBlank() ? null : type;
+        transactionTemplate.executeWithoutResult(status ->
+                photoRepository.completeMigration(id, stored.hash(), stored.size(), contentType));
+        return true;
+    }
+}
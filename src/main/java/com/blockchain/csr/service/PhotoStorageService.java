@@ -0,0 +1,97 @@
+package com.blockchain.csr.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for photo bytes. Each file is named by the SHA-256 of its content and
+ * sharded by the first two hex pairs, so identical uploads share one file and a stored file never changes
+ */
+@Service
+@Slf4j
+public class PhotoStorageService {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public PhotoStorageService(@Value("${photo.storage.dir:data/photos}") String dir) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        this.tmpDir = root.resolve("tmp");
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(tmpDir);
+        log.info("Photo store at {}", root);
+    }
+
+    /**
+     * Copy the stream into the store, hashing while writing so the bytes are read only once
+     * @param in photo bytes, not closed by this method
+     * @return hash and size of the stored content
+     */
+    public StoredPhoto store(InputStream in) throws IOException {
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                size = new DigestInputStream(in, digest).transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                // Same file system as tmp, so the rename is atomic and readers never see a partial file
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredPhoto(hash, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Path of the file holding the given content
+     * @param hash lowercase SHA-256 hex
+     * @return file path, which may not exist
+     */
+    public Path resolve(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    public boolean exists(String hash) {
+        return Files.isRegularFile(resolve(hash));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record StoredPhoto(String hash, long size) {
+    }
+}
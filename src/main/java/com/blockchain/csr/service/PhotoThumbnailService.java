@@ -0,0 +1,355 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.PhotoDto;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resized copies of stored photos at a fixed set of widths. Derivatives are written once to a
+ * disk cache bounded by total size with LRU eviction, and resizing is capped by a semaphore so a
+ * burst of cold list pages can't take every CPU; callers that can't get a permit in time are told to retry
+ */
+@Service
+@Slf4j
+public class PhotoThumbnailService {
+
+    private static final Pattern PHOTO_URL = Pattern.compile("^((?:https?://[^/]+)?/api/photos/\\d+)(?:/content)?(?:\\?.*)?$");
+    private static final String PART_SUFFIX = ".part";
+
+    private final PhotoStorageService photoStorageService;
+    private final Path cacheDir;
+    private final TreeSet<Integer> widths;
+    private final long maxCacheBytes;
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final long maxSourcePixels;
+    private final float jpegQuality;
+
+    // Cached derivative file name -> size in bytes, in access order; guarded by this
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    // Requests for a derivative that is being rendered wait for that render instead of starting another
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    public PhotoThumbnailService(PhotoStorageService photoStorageService,
+                                 @Value("${photo.thumbnail.dir:data/photo-thumbnails}") String dir,
+                                 @Value("${photo.thumbnail.widths:160,320,640,1024}") List<Integer> widths,
+                                 @Value("${photo.thumbnail.cache-max-bytes:536870912}") long maxCacheBytes,
+                                 @Value("${photo.thumbnail.max-concurrent:2}") int maxConcurrent,
+                                 @Value("${photo.thumbnail.acquire-timeout-ms:3000}") long acquireTimeoutMs,
+                                 @Value("${photo.thumbnail.max-source-pixels:40000000}") long maxSourcePixels,
+                                 @Value("${photo.thumbnail.jpeg-quality:0.8}") float jpegQuality) {
+        if (widths.isEmpty()) {
+            throw new IllegalArgumentException("photo.thumbnail.widths must not be empty");
+        }
+        this.photoStorageService = photoStorageService;
+        this.cacheDir = Paths.get(dir).toAbsolutePath().normalize();
+        this.widths = new TreeSet<>(widths);
+        this.maxCacheBytes = maxCacheBytes;
+        this.permits = new Semaphore(maxConcurrent);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.maxSourcePixels = maxSourcePixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Rebuild the LRU index from the files left by the previous run, oldest first
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(cacheDir);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        List<Path> kept = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(PART_SUFFIX)) {
+                Files.deleteIfExists(file);
+            } else {
+                kept.add(file);
+            }
+        }
+        kept.sort(Comparator.comparing(PhotoThumbnailService::lastAccess));
+        synchronized (this) {
+            for (Path file : kept) {
+                long size = Files.size(file);
+                entries.put(file.getFileName().toString(), size);
+                cachedBytes += size;
+            }
+            evict();
+        }
+        log.info("Photo thumbnail cache at {} holds {} files, {} bytes", cacheDir, entries.size(), cachedBytes);
+    }
+
+    public boolean isSupportedWidth(int width) {
+        return widths.contains(width);
+    }
+
+    /**
+     * Output format for a request: the requested one if supported, otherwise JPEG for JPEG sources and PNG for the rest
+     * @param requested "jpeg", "jpg" or "png", may be null
+     * @param sourceType content type of the original
+     * @return "jpeg" or "png"
+     */
+    public String resolveFormat(String requested, String sourceType) {
+        if (requested == null || requested.isBlank()) {
+            return "image/jpeg".equalsIgnoreCase(sourceType) ? "jpeg" : "png";
+        }
+        return switch (requested.toLowerCase()) {
+            case "jpeg", "jpg" -> "jpeg";
+            case "png" -> "png";
+            default -> throw new IllegalArgumentException("不支持的图片格式: " + requested);
+        };
+    }
+
+    /**
+     * Rewrite a photo URL to its thumbnail at the nearest supported width, leaving external URLs untouched
+     * @param imageUrl stored image URL, e.g. /api/photos/12 or /api/photos/12/content
+     * @param width wanted width in pixels, null to keep the original URL
+     * @return thumbnail URL, or the input when it does not point at a photo
+     */
+    public String thumbnailUrl(String imageUrl, Integer width) {
+        if (imageUrl == null || width == null) {
+            return imageUrl;
+        }
+        Matcher matcher = PHOTO_URL.matcher(imageUrl.trim());
+        if (!matcher.matches()) {
+            return imageUrl;
+        }
+        return matcher.group(1) + "/content?w=" + snapWidth(width);
+    }
+
+    /**
+     * Smallest supported width not below the wanted one, or the largest supported width
+     */
+    public int snapWidth(int width) {
+        Integer ceiling = widths.ceiling(width);
+        return ceiling != null ? ceiling : widths.last();
+    }
+
+    /**
+     * File holding the photo resized to the given width, rendering it on a cache miss
+     * @param photo stored photo
+     * @param width supported target width; images narrower than this keep their size
+     * @param format "jpeg" or "png"
+     * @return derivative file, or null when no resize slot freed up within the acquire timeout
+     */
+    public Path thumbnail(PhotoDto photo, int width, String format) throws IOException {
+        if (!isSupportedWidth(width)) {
+            throw new IllegalArgumentException("不支持的图片宽度: " + width);
+        }
+        String key = photo.getContentHash() + "-w" + width + "." + format;
+        Path cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                mine.complete(null);
+                return null;
+            }
+            try {
+                Path rendered = render(photo, width, format, key);
+                mine.complete(rendered);
+                return rendered;
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            mine.complete(null);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Path await(CompletableFuture<Path> running) throws IOException {
+        try {
+            return running.get(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private synchronized Path lookup(String key) {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        Path file = cacheDir.resolve(key);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        // Removed behind our back, render it again
+        cachedBytes -= entries.remove(key);
+        return null;
+    }
+
+    private Path render(PhotoDto photo, int width, String format, String key) throws IOException {
+        Path source = photoStorageService.resolve(photo.getContentHash());
+        BufferedImage resized;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                throw new IOException("Cannot open stored photo " + photo.getId());
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("无法识别的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                // Checked from the header before decoding, so a tiny file can't claim a huge canvas
+                if ((long) sourceWidth * sourceHeight > maxSourcePixels) {
+                    throw new IllegalArgumentException("图片尺寸过大");
+                }
+                int targetWidth = Math.min(width, sourceWidth);
+                int targetHeight = Math.max(1, (int) Math.round(sourceHeight * (double) targetWidth / sourceWidth));
+
+                // Decode every n-th pixel when the source is far larger, keeping at least 2x for the final scaling
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, sourceWidth / (targetWidth * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                boolean png = "png".equals(format);
+                resized = new BufferedImage(targetWidth, targetHeight, png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = resized.createGraphics();
+                try {
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    if (!png) {
+                        // JPEG has no alpha, transparent areas become white instead of black
+                        g.setColor(Color.WHITE);
+                        g.fillRect(0, 0, targetWidth, targetHeight);
+                    }
+                    g.drawImage(decoded, 0, 0, targetWidth, targetHeight, null);
+                } finally {
+                    g.dispose();
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        Path tmp = Files.createTempFile(cacheDir, key, PART_SUFFIX);
+        try {
+            write(resized, format, tmp);
+            Path target = cacheDir.resolve(key);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            add(key, Files.size(target));
+            return target;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void write(BufferedImage image, String format, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private synchronized void add(String key, long size) {
+        Long previous = entries.put(key, size);
+        cachedBytes += size - (previous != null ? previous : 0L);
+        evict();
+    }
+
+    /**
+     * Drop least recently used files until the cache fits, always keeping the newest one
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (cachedBytes > maxCacheBytes && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            try {
+                Files.deleteIfExists(cacheDir.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete cached thumbnail {}: {}", eldest.getKey(), e.getMessage());
+            }
+            cachedBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private static FileTime lastAccess(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastAccessTime();
+        } catch (IOException e) {
+            return FileTime.fromMillis(0L);
+        }
+    }
+}
@@ -1,32 +1,52 @@
 package com.blockchain.csr.service;
 
+import com.blockchain.csr.config.JwtUtil;
+import com.blockchain.csr.config.TokenClaims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class RefreshTokenService {
     
-    private final ConcurrentMap<String, String> validRefreshTokens = new ConcurrentHashMap<>();
+    private final RefreshTokenStore refreshTokenStore;
+    private final JwtUtil jwtUtil;
     
     public void addRefreshToken(String username, String refreshToken) {
-        validRefreshTokens.put(refreshToken, username);
+        TokenClaims claims = jwtUtil.parseRefreshToken(refreshToken);
+        if (claims == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        refreshTokenStore.save(JwtUtil.tokenHash(refreshToken), username, claims.getExpiration().toInstant());
     }
     
     public boolean isValidRefreshToken(String refreshToken) {
-        return validRefreshTokens.containsKey(refreshToken);
+        return getUsernameFromRefreshToken(refreshToken) != null;
     }
     
     public String getUsernameFromRefreshToken(String refreshToken) {
-        return validRefreshTokens.get(refreshToken);
+        return refreshTokenStore.findUsername(JwtUtil.tokenHash(refreshToken));
     }
     
     public void removeRefreshToken(String refreshToken) {
-        validRefreshTokens.remove(refreshToken);
+        refreshTokenStore.remove(JwtUtil.tokenHash(refreshToken));
     }
     
     public void removeAllRefreshTokensForUser(String username) {
-        validRefreshTokens.entrySet().removeIf(entry -> username.equals(entry.getValue()));
+        refreshTokenStore.removeAllForUser(username);
+    }
+
+    /**
+     * Expired tokens are already rejected on lookup; this only reclaims their storage
+     */
+    @Scheduled(fixedDelayString = "${security.refresh-token.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = refreshTokenStore.purgeExpired();
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
     }
-} 
\ No newline at end of file
+}
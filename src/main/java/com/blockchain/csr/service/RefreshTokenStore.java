@@ -0,0 +1,48 @@
+package com.blockchain.csr.service;
+
+import java.time.Instant;
+
+/**
+ * Storage of issued refresh tokens, keyed by token hash. Selected with {@code security.refresh-token.store}:
+ * {@code db} (default, shared by all nodes and kept across restarts) or {@code memory} (single node).
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Store an issued refresh token
+     *
+     * @param tokenHash SHA-256 of the token
+     * @param username the token owner
+     * @param expiresAt when the token expires
+     */
+    void save(String tokenHash, String username, Instant expiresAt);
+
+    /**
+     * Look up the owner of a stored, unexpired token
+     *
+     * @param tokenHash SHA-256 of the token
+     * @return the username, or null if the token is unknown, revoked or expired
+     */
+    String findUsername(String tokenHash);
+
+    /**
+     * Remove one token
+     *
+     * @param tokenHash SHA-256 of the token
+     */
+    void remove(String tokenHash);
+
+    /**
+     * Remove every token of a user
+     *
+     * @param username the token owner
+     */
+    void removeAllForUser(String username);
+
+    /**
+     * Delete expired tokens
+     *
+     * @return number of tokens deleted
+     */
+    int purgeExpired();
+}
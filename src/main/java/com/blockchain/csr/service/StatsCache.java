@@ -0,0 +1,236 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.config.SecurityUtils;
+import com.blockchain.csr.model.dto.ActivityStatsDto;
+import com.blockchain.csr.model.dto.EventStatsDto;
+import com.blockchain.csr.model.entity.ActivityStats;
+import com.blockchain.csr.repository.ActivityStatsRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded in-process cache of per-event and per-activity participation totals.
+ * Entries are evicted precisely after signup/withdraw/detail-update commits; the TTL only bounds
+ * staleness of changes made on other nodes. Once an entry is older than the refresh interval it is
+ * still served while a single background reload runs.
+ */
+@Component
+@Slf4j
+public class StatsCache {
+
+    /**
+     * Send this header with any value other than "false" to read the totals straight from the database.
+     * Only honored for admins, so other callers cannot turn every stats read into a query.
+     */
+    public static final String BYPASS_HEADER = "X-Stats-Cache-Bypass";
+
+    private final EventService eventService;
+    private final ActivityStatsRepository activityStatsRepository;
+    private final LoadingCache<Integer, EventStatsDto> eventCache;
+    private final LoadingCache<Integer, ActivityStatsDto> activityCache;
+
+    public StatsCache(EventService eventService,
+                      ActivityStatsRepository activityStatsRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${stats.cache.max-size:10000}") long maxSize,
+                      @Value("${stats.cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds,
+                      @Value("${stats.cache.refresh-after-write-seconds:30}") long refreshAfterWriteSeconds) {
+        this.eventService = eventService;
+        this.activityStatsRepository = activityStatsRepository;
+
+        this.eventCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(refreshAfterWriteSeconds))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public EventStatsDto load(Integer eventId) {
+                        return loadEventStats(List.of(eventId)).get(eventId);
+                    }
+
+                    @Override
+                    public Map<Integer, EventStatsDto> loadAll(Set<? extends Integer> eventIds) {
+                        return loadEventStats(eventIds);
+                    }
+                });
+
+        this.activityCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(refreshAfterWriteSeconds))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ActivityStatsDto load(Integer activityId) {
+                        return loadActivityStats(List.of(activityId)).get(activityId);
+                    }
+
+                    @Override
+                    public Map<Integer, ActivityStatsDto> loadAll(Set<? extends Integer> activityIds) {
+                        return loadActivityStats(activityIds);
+                    }
+                });
+
+        CaffeineCacheMetrics.monitor(meterRegistry, eventCache, "stats.event");
+        CaffeineCacheMetrics.monitor(meterRegistry, activityCache, "stats.activity");
+    }
+
+    /**
+     * Get event totals (including per-activity totals), loading all misses in one bulk call
+     *
+     * @param eventIds the event IDs
+     * @return stats keyed by event ID
+     */
+    public Map<Integer, EventStatsDto> getEventStats(List<Integer> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Map.of();
+        }
+        if (isBypassed()) {
+            return loadEventStats(eventIds);
+        }
+        return eventCache.getAll(eventIds);
+    }
+
+    /**
+     * Get activity totals, loading all misses in one bulk call
+     *
+     * @param activityIds the activity IDs
+     * @return stats keyed by activity ID
+     */
+    public Map<Integer, ActivityStatsDto> getActivityStats(List<Integer> activityIds) {
+        if (activityIds.isEmpty()) {
+            return Map.of();
+        }
+        if (isBypassed()) {
+            return loadActivityStats(activityIds);
+        }
+        return activityCache.getAll(activityIds);
+    }
+
+    /**
+     * Evict the totals of an activity and its event once the current transaction commits
+     * (immediately when there is no transaction)
+     *
+     * @param activityId the activity ID
+     * @param eventId the event ID of the activity, may be null
+     */
+    public void evictAfterCommit(Integer activityId, Integer eventId) {
+        runAfterCommit(() -> {
+            activityCache.invalidate(activityId);
+            if (eventId != null) {
+                eventCache.invalidate(eventId);
+            }
+        });
+    }
+
+    /**
+     * Evict the totals of whole events and the given activities once the current transaction commits,
+     * e.g. after the counters of those events were recomputed
+     *
+     * @param eventIds the event IDs
+     * @param activityIds the activity IDs
+     */
+    public void evictAfterCommit(Collection<Integer> eventIds, Collection<Integer> activityIds) {
+        List<Integer> events = List.copyOf(eventIds);
+        List<Integer> activities = List.copyOf(activityIds);
+        runAfterCommit(() -> {
+            activityCache.invalidateAll(activities);
+            eventCache.invalidateAll(events);
+        });
+    }
+
+    /**
+     * Hit/miss/eviction counters of both caches
+     *
+     * @return counters keyed by cache name
+     */
+    public Map<String, Map<String, Object>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new LinkedHashMap<>();
+        metrics.put("event", describe(eventCache.stats(), eventCache.estimatedSize()));
+        metrics.put("activity", describe(activityCache.stats(), activityCache.estimatedSize()));
+        return metrics;
+    }
+
+    private Map<Integer, EventStatsDto> loadEventStats(Collection<? extends Integer> eventIds) {
+        return eventService.getEventStats(List.copyOf(eventIds));
+    }
+
+    private Map<Integer, ActivityStatsDto> loadActivityStats(Collection<? extends Integer> activityIds) {
+        Map<Integer, ActivityStatsDto> result = new HashMap<>();
+        for (Integer activityId : activityIds) {
+            // Activities without a stats row have no signups yet
+            result.put(activityId, ActivityStatsDto.builder()
+                    .activityId(activityId)
+                    .totalParticipants(0)
+                    .totalTime(0)
+                    .totalAmount(BigDecimal.ZERO)
+                    .build());
+        }
+        for (ActivityStats stats : activityStatsRepository.findAllById(List.copyOf(activityIds))) {
+            result.put(stats.getActivityId(), ActivityStatsDto.builder()
+                    .activityId(stats.getActivityId())
+                    .eventId(stats.getEventId())
+                    .totalParticipants(stats.getParticipants())
+                    .totalTime(stats.getTotalMinutes())
+                    .totalAmount(stats.getTotalAmount())
+                    .build());
+        }
+        return result;
+    }
+
+    private boolean isBypassed() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String header = servletAttributes.getRequest().getHeader(BYPASS_HEADER);
+            return header != null && !"false".equalsIgnoreCase(header) && SecurityUtils.isAdmin();
+        }
+        return false;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("loadFailures", stats.loadFailureCount());
+        result.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+}
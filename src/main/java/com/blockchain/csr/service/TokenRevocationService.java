@@ -0,0 +1,160 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.entity.RevokedToken;
+import com.blockchain.csr.repository.RevokedTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Revocation list of access tokens by jti. Revocations are stored in revoked_token until the token
+ * expires; each node keeps a Bloom filter of them, so checking a token that was not revoked
+ * (almost every request) needs no I/O. Only filter hits are confirmed against the database.
+ * Nodes add new revocations to their filter every {@code security.revocation.sync-interval-ms}
+ * and rebuild it from the table every {@code security.revocation.rebuild-interval-ms} to drop expired ones.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final int PAGE_SIZE = 1000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    private final int syncOverlap;
+    // Confirmed answers for filter hits; a revocation never becomes un-revoked
+    private final Cache<String, Boolean> confirmed;
+    private final Counter filteredChecks;
+    private final Counter revokedChecks;
+    private final Counter falsePositiveChecks;
+
+    private volatile TokenBloomFilter filter;
+    private volatile long lastSyncedId;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.revocation.expected-tokens:100000}") int expectedTokens,
+                                  @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${security.revocation.sync-overlap:500}") int syncOverlap,
+                                  @Value("${jwt.access-token-expiration:300000}") long accessTokenExpirationMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncOverlap = syncOverlap;
+        this.filter = new TokenBloomFilter(expectedTokens, falsePositiveRate);
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(accessTokenExpirationMs))
+                .build();
+        this.filteredChecks = Counter.builder("security.revocation.checks").tag("result", "not_revoked").register(meterRegistry);
+        this.revokedChecks = Counter.builder("security.revocation.checks").tag("result", "revoked").register(meterRegistry);
+        this.falsePositiveChecks = Counter.builder("security.revocation.checks").tag("result", "false_positive").register(meterRegistry);
+    }
+
+    /**
+     * Revoke a token until it expires
+     *
+     * @param jti the token ID
+     * @param expiresAt the token expiry
+     */
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || !expiresAt.after(new Date())) {
+            return;
+        }
+        RevokedToken revoked = new RevokedToken();
+        revoked.setJti(jti);
+        revoked.setExpiresAt(LocalDateTime.ofInstant(expiresAt.toInstant(), ZONE));
+        revoked.setRevokedAt(LocalDateTime.now(ZONE));
+        try {
+            revokedTokenRepository.save(revoked);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Token {} was already revoked", jti);
+        }
+        filter.put(jti);
+        confirmed.put(jti, Boolean.TRUE);
+    }
+
+    /**
+     * Check whether a token was revoked
+     *
+     * @param jti the token ID
+     * @return true if revoked
+     */
+    public boolean isRevoked(String jti) {
+        if (!filter.mightContain(jti)) {
+            filteredChecks.increment();
+            return false;
+        }
+        // Only positive answers are cached: a false positive may still be revoked later on another node
+        boolean revoked = confirmed.getIfPresent(jti) != null || revokedTokenRepository.existsByJti(jti);
+        if (revoked) {
+            confirmed.put(jti, Boolean.TRUE);
+            revokedChecks.increment();
+        } else {
+            falsePositiveChecks.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Add revocations made since the last sync (on any node) to the filter. The last {@code sync-overlap}
+     * IDs are read again: a revocation whose transaction commits after one with a higher ID was
+     * already read would otherwise be skipped until the next rebuild. Re-adding to the filter is harmless.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.sync-interval-ms:2000}")
+    public synchronized void sync() {
+        lastSyncedId = Math.max(lastSyncedId, load(filter, Math.max(0L, lastSyncedId - syncOverlap)));
+    }
+
+    /**
+     * Build a fresh filter from the unexpired revocations, which drops expired ones, and purge expired rows
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-interval-ms:600000}", initialDelayString = "${security.revocation.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        Integer purged = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(LocalDateTime.now(ZONE)));
+        TokenBloomFilter rebuilt = new TokenBloomFilter(expectedTokens, falsePositiveRate);
+        long syncedId = load(rebuilt, 0L);
+        // Revocations made on this node after the load reach the new filter with the next sync
+        filter = rebuilt;
+        lastSyncedId = syncedId;
+        sync();
+        log.info("Rebuilt token revocation filter up to revocation {}, purged {} expired revocations", syncedId, purged);
+    }
+
+    private long load(TokenBloomFilter target, long afterId) {
+        long cursor = afterId;
+        while (true) {
+            List<Object[]> rows = revokedTokenRepository.findActiveAfter(cursor, LocalDateTime.now(ZONE), PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                target.put((String) row[1]);
+                cursor = (Long) row[0];
+            }
+            if (rows.size() < PAGE_SIZE) {
+                return cursor;
+            }
+        }
+    }
+}
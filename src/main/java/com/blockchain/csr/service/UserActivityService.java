@@ -16,6 +16,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.util.ObjectUtils;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.Optional;
@@ -34,6 +35,8 @@ public class UserActivityService{
     private final ActivityRepository activityRepository;
     private final ActivityDetailFactory activityDetailFactory;
     private final ObjectMapper objectMapper;
+    private final ParticipationStatsService participationStatsService;
+    private final ChainOutboxService chainOutboxService;
 
     public int deleteByPrimaryKey(Integer id) {
         userActivityRepository.deleteById(id);
@@ -105,12 +108,17 @@ public class UserActivityService{
                 throw new IllegalArgumentException("Activity has no template assigned");
             }
             
-            // 4. Create detail using factory with blockchain integration for activities
-            BasicDetailDTO detail= activityDetailFactory.createDetail(templateId, request.getDetail(), request.getUserId(), request.getActivityId());
+            // 4. Create detail using factory; it is stored as PENDING on chain
+            BasicDetailDTO detail = activityDetailFactory.createPendingDetail(templateId, request.getDetail(), request.getActivityId());
 
-            // 5. Update the user activity record
+            // 5. Update the user activity record and queue the chain submission in the same transaction
+            Serializable oldDetail = userActivity.getDetail();
             userActivity.setDetail(detail);
             userActivityRepository.save(userActivity);
+            chainOutboxService.enqueue(userActivity, activityDetailFactory.chainAmount(detail), detail.getComment());
+
+            // 6. Keep the participation counters in sync with the donation amount
+            participationStatsService.onDetailUpdated(activity, oldDetail, detail);
             
             log.info("Successfully updated activity detail for user ID: {}, activity ID: {}", 
                     request.getUserId(), request.getActivityId());
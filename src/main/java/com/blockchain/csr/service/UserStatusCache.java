@@ -0,0 +1,93 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Short-lived cache of whether a user still exists and which role it has, used to authenticate
+ * requests from token claims without a database lookup. Changes made through this node are evicted
+ * immediately; changes made on other nodes are picked up within the TTL.
+ */
+@Component
+@Slf4j
+public class UserStatusCache {
+
+    private static final UserStatus NOT_FOUND = new UserStatus(null, null, null);
+
+    private final UserRepository userRepository;
+    private final LoadingCache<String, UserStatus> cache;
+
+    public UserStatusCache(UserRepository userRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${security.user-status.max-size:10000}") long maxSize,
+                           @Value("${security.user-status.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "security.user-status");
+    }
+
+    /**
+     * Look up the current status of a user
+     *
+     * @param username the username from the token
+     * @return the status; {@link UserStatus#exists()} is false if the user was deleted or renamed
+     */
+    public UserStatus get(String username) {
+        return cache.get(username);
+    }
+
+    /**
+     * Forget the cached status of the given users, e.g. after their role changed or they were deleted
+     *
+     * @param userIds the user IDs
+     */
+    public void evictUserIds(Collection<Integer> userIds) {
+        Set<Integer> ids = Set.copyOf(userIds);
+        cache.asMap().values().removeIf(status -> status.getId() != null && ids.contains(status.getId()));
+    }
+
+    private UserStatus load(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> new UserStatus(user.getId(), user.getUsername(), user.getRole()))
+                .orElse(NOT_FOUND);
+    }
+
+    @Getter
+    public static class UserStatus {
+        private final Integer id;
+        private final String username;
+        private final String role;
+
+        UserStatus(Integer id, String username, String role) {
+            this.id = id;
+            this.username = username;
+            this.role = role;
+        }
+
+        public boolean exists() {
+            return id != null;
+        }
+
+        /**
+         * The role as a Spring Security authority, e.g. ROLE_ADMIN
+         */
+        public String getAuthority() {
+            return "ROLE_" + role;
+        }
+    }
+}
@@ -172,6 +172,8 @@ CREATE TABLE IF NOT EXISTS `csr`.`user_activity` (
   `created_at` DATETIME NULL,
   `chain_id` VARCHAR(45) NULL,
   `detail` JSON NULL,
+  `donation_amount` DECIMAL(19,2) NULL,
+  `donation_amount_extracted` BOOLEAN NULL,
   `deleted` BOOLEAN NOT NULL DEFAULT FALSE,
   PRIMARY KEY (`id`),
   CONSTRAINT `user_activity_user_fk`
@@ -197,6 +199,136 @@ CREATE INDEX `idx_user_activity_covering` ON `csr`.`user_activity` (`activity_id
 
 CREATE INDEX `idx_user_activity_user_state` ON `csr`.`user_activity` (`user_id`, `state`);
 
+-- Covers the donation SUM queries without touching the JSON detail column
+CREATE INDEX `idx_user_activity_donation` ON `csr`.`user_activity` (`activity_id`, `state`, `donation_amount`);
+
+
+-- -----------------------------------------------------
+-- Table `csr`.`activity_stats`
+-- Denormalized participation counters, maintained on signup/withdraw/detail update
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `csr`.`activity_stats` ;
+
+CREATE TABLE IF NOT EXISTS `csr`.`activity_stats` (
+  `activity_id` INT NOT NULL,
+  `event_id` INT NULL,
+  `participants` INT NOT NULL DEFAULT 0,
+  `total_minutes` INT NOT NULL DEFAULT 0,
+  `total_amount` DECIMAL(19,2) NOT NULL DEFAULT 0,
+  `updated_at` DATETIME NULL,
+  PRIMARY KEY (`activity_id`))
+ENGINE = InnoDB;
+
+CREATE INDEX `idx_activity_stats_event` ON `csr`.`activity_stats` (`event_id` ASC);
+
+
+-- -----------------------------------------------------
+-- Table `csr`.`event_stats`
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `csr`.`event_stats` ;
+
+CREATE TABLE IF NOT EXISTS `csr`.`event_stats` (
+  `event_id` INT NOT NULL,
+  `participants` INT NOT NULL DEFAULT 0,
+  `total_minutes` INT NOT NULL DEFAULT 0,
+  `total_amount` DECIMAL(19,2) NOT NULL DEFAULT 0,
+  `updated_at` DATETIME NULL,
+  PRIMARY KEY (`event_id`))
+ENGINE = InnoDB;
+
+
+-- -----------------------------------------------------
+-- Table `csr`.`chain_outbox`
+-- Blockchain submissions queued together with the activity detail they belong to
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `csr`.`chain_outbox` ;
+
+CREATE TABLE IF NOT EXISTS `csr`.`chain_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_activity_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `amount` DECIMAL(19,2) NULL,
+  `comment` TEXT NULL,
+  `request_id` VARCHAR(36) NOT NULL,
+  `status` VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  `attempts` INT NOT NULL DEFAULT 0,
+  `next_attempt_at` DATETIME NOT NULL,
+  `locked_at` DATETIME NULL,
+  `last_error` VARCHAR(500) NULL,
+  `chain_id` VARCHAR(100) NULL,
+  `created_at` DATETIME NOT NULL,
+  `updated_at` DATETIME NULL,
+  PRIMARY KEY (`id`))
+ENGINE = InnoDB;
+
+CREATE INDEX `idx_chain_outbox_status_next` ON `csr`.`chain_outbox` (`status`, `next_attempt_at`);
+
+CREATE INDEX `idx_chain_outbox_user_activity` ON `csr`.`chain_outbox` (`user_activity_id`, `id`);
+
+
+-- -----------------------------------------------------
+-- Table `csr`.`chain_reprocess_job`
+-- Checkpoint of the job that queues missing chain submissions
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `csr`.`chain_reprocess_job` ;
+
+CREATE TABLE IF NOT EXISTS `csr`.`chain_reprocess_job` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `status` VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+  `owner` VARCHAR(36) NULL,
+  `last_user_activity_id` INT NOT NULL DEFAULT 0,
+  `scanned` BIGINT NOT NULL DEFAULT 0,
+  `queued` BIGINT NOT NULL DEFAULT 0,
+  `skipped` BIGINT NOT NULL DEFAULT 0,
+  `unparseable` BIGINT NOT NULL DEFAULT 0,
+  `last_error` VARCHAR(500) NULL,
+  `started_at` DATETIME NOT NULL,
+  `updated_at` DATETIME NULL,
+  `finished_at` DATETIME NULL,
+  PRIMARY KEY (`id`))
+ENGINE = InnoDB;
+
+CREATE INDEX `idx_chain_reprocess_job_status` ON `csr`.`chain_reprocess_job` (`status`, `id`);
+
+
+-- -----------------------------------------------------
+-- Table `csr`.`refresh_token`
+-- Issued refresh tokens (SHA-256 of the token, never the token itself)
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `csr`.`refresh_token` ;
+
+CREATE TABLE IF NOT EXISTS `csr`.`refresh_token` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `token_hash` CHAR(44) NOT NULL,
+  `username` VARCHAR(45) NOT NULL,
+  `expires_at` DATETIME NOT NULL,
+  `created_at` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE INDEX `token_hash_UNIQUE` (`token_hash` ASC))
+ENGINE = InnoDB;
+
+CREATE INDEX `idx_refresh_token_username` ON `csr`.`refresh_token` (`username`);
+
+CREATE INDEX `idx_refresh_token_expires` ON `csr`.`refresh_token` (`expires_at`);
+
+
+-- -----------------------------------------------------
+-- Table `csr`.`revoked_token`
+-- Access tokens (by jti) revoked before they expire
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `csr`.`revoked_token` ;
+
+CREATE TABLE IF NOT EXISTS `csr`.`revoked_token` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `jti` VARCHAR(36) NOT NULL,
+  `expires_at` DATETIME NOT NULL,
+  `revoked_at` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE INDEX `jti_UNIQUE` (`jti` ASC))
+ENGINE = InnoDB;
+
+CREATE INDEX `idx_revoked_token_expires` ON `csr`.`revoked_token` (`expires_at`);
+
 
 -- -----------------------------------------------------
 -- Table `csr`.`attachment`
@@ -285,12 +417,16 @@ CREATE TABLE IF NOT EXISTS `csr`.`photo` (
   `name` VARCHAR(255) NOT NULL,
   `type` VARCHAR(45) NULL,
   `content` LONGTEXT NULL,
+  `content_hash` CHAR(64) NULL,
+  `size` BIGINT NULL,
   PRIMARY KEY (`id`))
 ENGINE = InnoDB
 ROW_FORMAT = Dynamic;
 
 CREATE INDEX `idx_photo_name` ON `csr`.`photo` (`name` ASC);
 
+CREATE INDEX `idx_photo_content_hash` ON `csr`.`photo` (`content_hash` ASC);
+
 SET SQL_MODE=@OLD_SQL_MODE;
 SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS;
 SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS;
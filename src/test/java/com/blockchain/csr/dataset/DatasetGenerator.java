@@ -0,0 +1,476 @@
+package com.blockchain.csr.dataset;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-loads a synthetic dataset following init.sql (user, template, event, activity, user_activity)
+ * with the skew seen in production: a few events draw most signups, a few users are very active,
+ * and the history contains withdrawn, soft-deleted and duplicate rows and reviewer chains.
+ * <p>
+ * Rows are appended after the current maximum IDs with multi-row INSERTs, so it runs against MySQL
+ * or H2 (for H2 the JSON columns must be text, see the load test's EmbeddedTarget). On MySQL add
+ * {@code rewriteBatchedStatements=true} to the URL; foreign key and unique checks are switched off
+ * for the session while loading. The activity_stats / event_stats counters are not written: rebuild
+ * them afterwards with {@code POST /api/stats/rebuild} or {@code ParticipationStatsService.rebuildAll()}.
+ * <pre>
+ * new DatasetGenerator(dataSource, DatasetSpec.preset("small")).generate();
+ * </pre>
+ * From the command line, e.g. against the compose MySQL:
+ * <pre>
+ * mvn -P loadtest test-compile exec:exec -Dloadtest.main=com.blockchain.csr.dataset.DatasetGenerator \
+ *     -Dloadtest.args="--jdbc-url jdbc:mysql://localhost:3306/csr?rewriteBatchedStatements=true --jdbc-user csr --jdbc-password ... --preset large"
+ * </pre>
+ */
+public class DatasetGenerator {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final String[] LOCATIONS = {"Shanghai", "Beijing", "Shenzhen", "Hangzhou", "Chengdu", "Wuhan", "Nanjing", "Xi'an"};
+    private static final String[] GENDERS = {"male", "female", "other"};
+    private static final String VISIBLE_ROLES = "[\"USER\",\"ADMIN\"]";
+    private static final int STATEMENTS_PER_COMMIT = 20;
+    private static final int DURATION_TEMPLATE = 1;
+    private static final int DONATION_TEMPLATE = 2;
+
+    private final DataSource dataSource;
+    private final DatasetSpec spec;
+    private final SplittableRandom random;
+    private final LocalDateTime now = LocalDateTime.now(ZONE).truncatedTo(ChronoUnit.MINUTES);
+
+    public DatasetGenerator(DataSource dataSource, DatasetSpec spec) {
+        this.dataSource = dataSource;
+        this.spec = spec;
+        this.random = new SplittableRandom(spec.seed());
+    }
+
+    /**
+     * Rows written per table
+     */
+    public record Result(int users, int events, int activities, int userActivities, long durationMs) {
+    }
+
+    public Result generate() throws SQLException {
+        long started = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+            boolean mysql = product.contains("mysql") || product.contains("mariadb");
+            boolean h2 = product.contains("h2");
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            if (mysql) {
+                execute(connection, "SET SESSION foreign_key_checks = 0");
+                execute(connection, "SET SESSION unique_checks = 0");
+            }
+            try {
+                ensureTemplates(connection);
+                Users users = insertUsers(connection);
+                Events events = insertEventsAndActivities(connection);
+                int userActivities = insertUserActivities(connection, users, events);
+                if (h2) {
+                    restartIdentities(connection);
+                }
+                Result result = new Result(users.ids.length, events.count, events.activityIds.length, userActivities,
+                        System.currentTimeMillis() - started);
+                log("Generated %d users, %d events, %d activities, %d user activities in %d ms",
+                        result.users(), result.events(), result.activities(), result.userActivities(), result.durationMs());
+                return result;
+            } finally {
+                if (mysql) {
+                    execute(connection, "SET SESSION foreign_key_checks = 1");
+                    execute(connection, "SET SESSION unique_checks = 1");
+                }
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void ensureTemplates(Connection connection) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(connection, "template", spec.rowsPerStatement(),
+                "id", "name", "total_time", "file_link", "detail")) {
+            if (!exists(connection, "template", DURATION_TEMPLATE)) {
+                insert.add(DURATION_TEMPLATE, "志愿者服务模板", 120, null, "{\"description\":\"duration\"}");
+            }
+            if (!exists(connection, "template", DONATION_TEMPLATE)) {
+                insert.add(DONATION_TEMPLATE, "捐赠模板", 0, null, "{\"description\":\"donation\"}");
+            }
+        }
+    }
+
+    private Users insertUsers(Connection connection) throws SQLException {
+        int firstId = maxId(connection, "user") + 1;
+        String passwordHash = new BCryptPasswordEncoder().encode(spec.password());
+        Users users = new Users(spec.users());
+        List<Integer> reviewers = new ArrayList<>();
+        try (BulkInsert insert = new BulkInsert(connection, "user", spec.rowsPerStatement(),
+                "id", "username", "password", "role", "location", "reviewer", "create_time", "nickname", "real_name", "gender")) {
+            for (int i = 0; i < spec.users(); i++) {
+                int id = firstId + i;
+                // Reviewers always come from earlier users, so chains end at the first reviewer and never loop
+                Integer reviewer = reviewers.isEmpty() ? null : reviewers.get(random.nextInt(reviewers.size()));
+                if (random.nextDouble() < spec.reviewerFraction()) {
+                    reviewers.add(id);
+                }
+                users.ids[i] = id;
+                users.reviewers[i] = reviewer != null ? reviewer : 0;
+                insert.add(id, "ds-user-" + id, passwordHash,
+                        random.nextDouble() < spec.adminFraction() ? "ADMIN" : "USER",
+                        LOCATIONS[random.nextInt(LOCATIONS.length)], reviewer,
+                        now.minusMinutes(random.nextInt(2 * 365 * 24 * 60)),
+                        "User " + id, "Real Name " + id, GENDERS[random.nextInt(GENDERS.length)]);
+            }
+        }
+        log("Inserted %d users (%d reviewers)", spec.users(), reviewers.size());
+        return users;
+    }
+
+    private Events insertEventsAndActivities(Connection connection) throws SQLException {
+        int firstEventId = maxId(connection, "event") + 1;
+        int firstActivityId = maxId(connection, "activity") + 1;
+        Events events = new Events(spec.events());
+        String[] locations = new String[spec.events()];
+
+        // Events are flushed completely before their activities so the foreign keys hold without disabling checks
+        try (BulkInsert insert = new BulkInsert(connection, "event", spec.rowsPerStatement(),
+                "id", "name", "description", "start_time", "end_time", "created_at", "location", "avatar",
+                "type", "status", "visible_locations", "visible_roles", "is_display", "detail_image")) {
+            for (int e = 0; e < spec.events(); e++) {
+                int eventId = firstEventId + e;
+                // Spread over the last year and the next three months: past, running and upcoming events
+                LocalDateTime start = now.minusDays(365).plusHours(random.nextInt(455 * 24));
+                events.starts[e] = start;
+                events.ends[e] = start.plusDays(1 + random.nextInt(60));
+                locations[e] = LOCATIONS[random.nextInt(LOCATIONS.length)];
+                insert.add(eventId, "Event " + eventId, "Generated event " + eventId, start, events.ends[e],
+                        start.minusDays(1 + random.nextInt(30)), locations[e],
+                        "https://cdn.example.com/events/" + eventId + ".jpg", "HYBRID", "ACTIVE",
+                        "[\"" + locations[e] + "\"]", VISIBLE_ROLES, random.nextDouble() < 0.9,
+                        "https://cdn.example.com/events/" + eventId + "-detail.jpg");
+            }
+        }
+
+        List<Integer> activityIds = new ArrayList<>();
+        List<Integer> templates = new ArrayList<>();
+        List<Integer> durations = new ArrayList<>();
+        try (BulkInsert insert = new BulkInsert(connection, "activity", spec.rowsPerStatement(),
+                "id", "name", "event_id", "template_id", "duration", "icon", "description", "start_time", "end_time",
+                "visible_locations", "visible_roles", "created_at", "image_1", "image_2")) {
+            for (int e = 0; e < spec.events(); e++) {
+                int activities = 1 + random.nextInt(Math.max(1, 2 * spec.activitiesPerEvent() - 1));
+                events.firstActivity[e] = activityIds.size();
+                events.activityCount[e] = activities;
+                for (int a = 0; a < activities; a++) {
+                    int activityId = firstActivityId + activityIds.size();
+                    boolean donation = random.nextDouble() < spec.donationFraction();
+                    int template = donation ? DONATION_TEMPLATE : DURATION_TEMPLATE;
+                    int duration = donation ? 0 : 30 * (1 + random.nextInt(8));
+                    activityIds.add(activityId);
+                    templates.add(template);
+                    durations.add(duration);
+                    insert.add(activityId, (donation ? "Donation " : "Activity ") + activityId, firstEventId + e,
+                            template, donation ? null : duration, donation ? "heart" : "leaf",
+                            "Generated activity " + activityId, events.starts[e], events.ends[e],
+                            "[\"" + locations[e] + "\"]", VISIBLE_ROLES, events.starts[e].minusDays(1),
+                            "https://cdn.example.com/activities/" + activityId + "-1.jpg",
+                            "https://cdn.example.com/activities/" + activityId + "-2.jpg");
+                }
+            }
+        }
+        events.activityIds = activityIds.stream().mapToInt(Integer::intValue).toArray();
+        events.templates = templates.stream().mapToInt(Integer::intValue).toArray();
+        events.durations = durations.stream().mapToInt(Integer::intValue).toArray();
+        log("Inserted %d events and %d activities", spec.events(), activityIds.size());
+        return events;
+    }
+
+    private int insertUserActivities(Connection connection, Users users, Events events) throws SQLException {
+        int firstId = maxId(connection, "user_activity") + 1;
+        ZipfSampler eventSampler = new ZipfSampler(spec.events(), spec.eventSkew(), random);
+        ZipfSampler userSampler = new ZipfSampler(users.ids.length, spec.userSkew(), random);
+        int written = 0;
+        int nextReport = 500_000;
+        long started = System.currentTimeMillis();
+        try (BulkInsert insert = new BulkInsert(connection, "user_activity", spec.rowsPerStatement(),
+                "id", "user_id", "activity_id", "state", "endorsed_by", "endorsed_at", "created_at",
+                "chain_id", "detail", "donation_amount", "donation_amount_extracted", "deleted")) {
+            while (written < spec.userActivities()) {
+                int e = eventSampler.next();
+                int activity = events.firstActivity[e] + random.nextInt(events.activityCount[e]);
+                int u = userSampler.next();
+                int userId = users.ids[u];
+                boolean donation = events.templates[activity] == DONATION_TEMPLATE;
+
+                long windowMinutes = Math.max(1, ChronoUnit.MINUTES.between(events.starts[e], events.ends[e]));
+                LocalDateTime createdAt = events.starts[e].plusMinutes(random.nextLong(windowMinutes));
+                boolean pending = random.nextDouble() < spec.missingChainFraction();
+                String chainId = pending ? null : chainId();
+                BigDecimal amount = donation ? amount() : null;
+                String detail = donation
+                        ? "{\"comment\":\"Generated donation\",\"amount\":" + amount.toPlainString()
+                          + ",\"chainId\":" + json(chainId) + ",\"chainState\":\"" + (pending ? "PENDING" : "SENT") + "\"}"
+                        : "{\"comment\":\"Generated participation\",\"duration\":" + events.durations[activity]
+                          + ",\"chainId\":" + json(chainId) + ",\"chainState\":\"" + (pending ? "PENDING" : "SENT") + "\"}";
+                String state = random.nextDouble() < spec.withdrawnFraction() ? "WITHDRAWN" : "SIGNED_UP";
+                Integer endorsedBy = users.reviewers[u] != 0 && random.nextDouble() < spec.endorsedFraction() ? users.reviewers[u] : null;
+                LocalDateTime endorsedAt = endorsedBy != null ? createdAt.plusHours(1 + random.nextInt(72)) : null;
+                boolean deleted = random.nextDouble() < spec.deletedFraction();
+
+                insert.add(firstId + written++, userId, events.activityIds[activity], state, endorsedBy, endorsedAt,
+                        createdAt, chainId, detail, amount, true, deleted);
+                // A double submit leaves a second identical signup seconds later
+                if (written < spec.userActivities() && random.nextDouble() < spec.duplicateFraction()) {
+                    insert.add(firstId + written++, userId, events.activityIds[activity], state, endorsedBy, endorsedAt,
+                            createdAt.plusSeconds(1 + random.nextInt(5)), chainId, detail, amount, true, deleted);
+                }
+                if (written >= nextReport) {
+                    long elapsed = Math.max(1, System.currentTimeMillis() - started);
+                    log("... %d user activities (%d rows/s)", written, written * 1000L / elapsed);
+                    nextReport += 500_000;
+                }
+            }
+        }
+        log("Inserted %d user activities", written);
+        return written;
+    }
+
+    private String chainId() {
+        return "0x" + Long.toHexString(random.nextLong() | Long.MIN_VALUE) + Long.toHexString(random.nextLong() | Long.MIN_VALUE)
+                + Long.toHexString(random.nextLong() | Long.MIN_VALUE).substring(0, 8);
+    }
+
+    /**
+     * Log-normal with a median of about 20: most donations are small, a few are large
+     */
+    private BigDecimal amount() {
+        double value = Math.exp(3 + random.nextGaussian());
+        return BigDecimal.valueOf(Math.max(0.01, value)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static String json(String value) {
+        return value == null ? "null" : "\"" + value + "\"";
+    }
+
+    /**
+     * H2 identity columns do not move past explicitly inserted IDs the way MySQL AUTO_INCREMENT does,
+     * so the next ID the application inserts would collide with a generated row
+     */
+    private static void restartIdentities(Connection connection) throws SQLException {
+        for (String table : new String[]{"template", "user", "event", "activity", "user_activity"}) {
+            execute(connection, "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId(connection, table) + 1));
+        }
+        connection.commit();
+    }
+
+    private static boolean exists(Connection connection, String table, int id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM " + table + " WHERE id = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static int maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[dataset] " + format + "%n", args);
+    }
+
+    private static final class Users {
+        final int[] ids;
+        // Reviewer ID per user, 0 for none
+        final int[] reviewers;
+
+        Users(int count) {
+            ids = new int[count];
+            reviewers = new int[count];
+        }
+    }
+
+    private static final class Events {
+        final int count;
+        final int[] firstActivity;
+        final int[] activityCount;
+        final LocalDateTime[] starts;
+        final LocalDateTime[] ends;
+        int[] activityIds;
+        int[] templates;
+        int[] durations;
+
+        Events(int count) {
+            this.count = count;
+            firstActivity = new int[count];
+            activityCount = new int[count];
+            starts = new LocalDateTime[count];
+            ends = new LocalDateTime[count];
+        }
+    }
+
+    /**
+     * Draws indexes 0..n-1 with P(rank r) proportional to 1/r^s; ranks are shuffled over the indexes
+     * so the popular items are not simply the oldest ones
+     */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+        private final int[] indexByRank;
+        private final SplittableRandom random;
+
+        ZipfSampler(int n, double exponent, SplittableRandom random) {
+            this.random = random;
+            this.cumulative = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= total;
+            }
+            indexByRank = new int[n];
+            for (int i = 0; i < n; i++) {
+                indexByRank[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = indexByRank[i];
+                indexByRank[i] = indexByRank[j];
+                indexByRank[j] = swap;
+            }
+        }
+
+        int next() {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            return indexByRank[Math.min(rank, cumulative.length - 1)];
+        }
+    }
+
+    /**
+     * Buffers rows and writes them as one multi-row INSERT per {@code rowsPerStatement}, committing every few statements
+     */
+    private static final class BulkInsert implements AutoCloseable {
+        private final Connection connection;
+        private final String table;
+        private final String[] columns;
+        private final int rowsPerStatement;
+        private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+        private final List<Object[]> rows = new ArrayList<>();
+        private int uncommitted;
+
+        BulkInsert(Connection connection, String table, int rowsPerStatement, String... columns) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.rowsPerStatement = rowsPerStatement;
+        }
+
+        void add(Object... values) throws SQLException {
+            rows.add(values);
+            if (rows.size() == rowsPerStatement) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            PreparedStatement statement = statements.get(rows.size());
+            if (statement == null) {
+                statement = connection.prepareStatement(sql(rows.size()));
+                statements.put(rows.size(), statement);
+            }
+            int index = 1;
+            for (Object[] row : rows) {
+                for (Object value : row) {
+                    statement.setObject(index++, value instanceof LocalDateTime time ? Timestamp.valueOf(time) : value);
+                }
+            }
+            statement.executeUpdate();
+            rows.clear();
+            if (++uncommitted >= STATEMENTS_PER_COMMIT) {
+                connection.commit();
+                uncommitted = 0;
+            }
+        }
+
+        private String sql(int rowCount) {
+            String placeholders = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+            for (int i = 0; i < rowCount; i++) {
+                sql.append(i == 0 ? "" : ", ").append(placeholders);
+            }
+            return sql.toString();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+                connection.commit();
+            } finally {
+                for (PreparedStatement statement : statements.values()) {
+                    statement.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code --jdbc-url <url> [--jdbc-user u] [--jdbc-password p] [--preset small|medium|large] [--<spec field> value ...]}
+     */
+    public static void main(String[] args) throws SQLException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        String url = options.remove("jdbc-url");
+        if (url == null) {
+            throw new IllegalArgumentException("--jdbc-url is required");
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                options.getOrDefault("jdbc-user", ""), options.getOrDefault("jdbc-password", ""));
+        options.remove("jdbc-user");
+        options.remove("jdbc-password");
+        DatasetSpec spec = DatasetSpec.preset(options.getOrDefault("preset", "small")).with(options);
+        new DatasetGenerator(dataSource, spec).generate();
+        log("Rebuild the participation stats before measuring: POST /api/stats/rebuild");
+    }
+}
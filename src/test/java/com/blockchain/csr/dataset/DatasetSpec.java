@@ -0,0 +1,95 @@
+package com.blockchain.csr.dataset;
+
+import java.util.Map;
+
+/**
+ * Size and shape of a generated dataset. Start from a preset and override single values:
+ * <pre>
+ * DatasetSpec spec = DatasetSpec.preset("medium").with(Map.of("userActivities", "2000000"));
+ * </pre>
+ *
+ * @param users                 users, of which {@code adminFraction} are admins
+ * @param events                events; popularity follows a Zipf distribution with exponent {@code eventSkew}
+ * @param activitiesPerEvent    average activities per event (each event gets 1 to 2x-1)
+ * @param userActivities        user_activity rows, including withdrawn, deleted and duplicate rows
+ * @param eventSkew             Zipf exponent over events, 0 for uniform
+ * @param userSkew              Zipf exponent over users (a few very active users), 0 for uniform
+ * @param donationFraction      share of activities using the donation template (2), the rest use duration (1)
+ * @param withdrawnFraction     share of signups later withdrawn
+ * @param deletedFraction       share of rows soft-deleted
+ * @param duplicateFraction     share of signups written twice, as left behind by double submits
+ * @param reviewerFraction      share of users acting as reviewers; reviewers have reviewers too, forming chains
+ * @param endorsedFraction      share of rows endorsed by the user's reviewer
+ * @param missingChainFraction  share of rows whose detail has no chain ID yet (PENDING)
+ * @param adminFraction         share of users with the ADMIN role
+ * @param seed                  random seed, equal seeds give equal datasets
+ * @param rowsPerStatement      rows per multi-row INSERT
+ * @param password              password of every generated user
+ */
+public record DatasetSpec(
+        int users,
+        int events,
+        int activitiesPerEvent,
+        int userActivities,
+        double eventSkew,
+        double userSkew,
+        double donationFraction,
+        double withdrawnFraction,
+        double deletedFraction,
+        double duplicateFraction,
+        double reviewerFraction,
+        double endorsedFraction,
+        double missingChainFraction,
+        double adminFraction,
+        long seed,
+        int rowsPerStatement,
+        String password) {
+
+    /**
+     * small for tests, medium for local benchmarks, large for production-scale runs
+     */
+    public static DatasetSpec preset(String name) {
+        return switch (name) {
+            case "small" -> new DatasetSpec(1_000, 20, 5, 10_000,
+                    1.1, 0.8, 0.3, 0.08, 0.02, 0.03, 0.05, 0.6, 0.05, 0.01, 42L, 1_000, "Password123!");
+            case "medium" -> new DatasetSpec(50_000, 500, 6, 500_000,
+                    1.1, 0.8, 0.3, 0.08, 0.02, 0.03, 0.05, 0.6, 0.05, 0.001, 42L, 1_000, "Password123!");
+            case "large" -> new DatasetSpec(300_000, 2_000, 5, 3_000_000,
+                    1.1, 0.8, 0.3, 0.08, 0.02, 0.03, 0.05, 0.6, 0.05, 0.0005, 42L, 1_000, "Password123!");
+            default -> throw new IllegalArgumentException("Unknown dataset preset: " + name + " (small, medium, large)");
+        };
+    }
+
+    /**
+     * Copy with the given fields replaced, keyed by record component name
+     */
+    public DatasetSpec with(Map<String, String> overrides) {
+        Map<String, String> o = overrides;
+        return new DatasetSpec(
+                intOr(o, "users", users),
+                intOr(o, "events", events),
+                intOr(o, "activitiesPerEvent", activitiesPerEvent),
+                intOr(o, "userActivities", userActivities),
+                doubleOr(o, "eventSkew", eventSkew),
+                doubleOr(o, "userSkew", userSkew),
+                doubleOr(o, "donationFraction", donationFraction),
+                doubleOr(o, "withdrawnFraction", withdrawnFraction),
+                doubleOr(o, "deletedFraction", deletedFraction),
+                doubleOr(o, "duplicateFraction", duplicateFraction),
+                doubleOr(o, "reviewerFraction", reviewerFraction),
+                doubleOr(o, "endorsedFraction", endorsedFraction),
+                doubleOr(o, "missingChainFraction", missingChainFraction),
+                doubleOr(o, "adminFraction", adminFraction),
+                o.containsKey("seed") ? Long.parseLong(o.get("seed")) : seed,
+                intOr(o, "rowsPerStatement", rowsPerStatement),
+                o.getOrDefault("password", password));
+    }
+
+    private static int intOr(Map<String, String> overrides, String key, int value) {
+        return overrides.containsKey(key) ? Integer.parseInt(overrides.get(key).replace("_", "")) : value;
+    }
+
+    private static double doubleOr(Map<String, String> overrides, String key, double value) {
+        return overrides.containsKey(key) ? Double.parseDouble(overrides.get(key)) : value;
+    }
+}
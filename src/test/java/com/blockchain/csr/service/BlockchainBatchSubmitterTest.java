@@ -0,0 +1,165 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.BlockchainTransactionRequest;
+import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.blockchain.csr.model.enums.ChainVerification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A transaction the chain rejects must not fail the other transactions flushed in the same batch,
+ * while an unavailable chain fails the batch at once instead of being retried piece by piece
+ */
+class BlockchainBatchSubmitterTest {
+
+    private static final String BAD = "bad";
+
+    private BlockchainBatchSubmitter submitter;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (submitter != null) {
+            submitter.stop();
+        }
+    }
+
+    @Test
+    void clientErrorOnBatchIsSplitUntilTheBadTransactionIsIsolated() throws Exception {
+        FakeChain chain = new FakeChain(new HttpClientErrorException(HttpStatus.BAD_REQUEST), false);
+        List<CompletableFuture<String>> futures = submitAll(chain, 3);
+
+        assertBadOneFailedAndOthersSent(futures);
+        // Halves without the bad transaction go through as batches
+        assertThat(chain.batchCalls.get()).isGreaterThan(1);
+        assertThat(chain.singleCalls.get()).isLessThan(futures.size());
+    }
+
+    @Test
+    void splittingStopsAtTheMaximumDepth() throws Exception {
+        FakeChain chain = new FakeChain(new HttpClientErrorException(HttpStatus.BAD_REQUEST), false);
+        List<CompletableFuture<String>> futures = submitAll(chain, 1);
+
+        assertBadOneFailedAndOthersSent(futures);
+        // The first batch and its two halves, then the half with the bad transaction one by one
+        assertThat(chain.batchCalls.get()).isEqualTo(3);
+        assertThat(chain.singleCalls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void unavailableChainFailsTheWholeBatchWithoutSplitting() {
+        FakeChain chain = new FakeChain(new RuntimeException("Blockchain service is unavailable",
+                new ResourceAccessException("Read timed out")), true);
+        List<CompletableFuture<String>> futures = submitAll(chain, 3);
+
+        assertAllFailed(futures);
+        assertThat(chain.batchCalls.get()).isEqualTo(1);
+        assertThat(chain.singleCalls.get()).isZero();
+    }
+
+    @Test
+    void serverErrorStopsOneByOneSending() {
+        FakeChain chain = new FakeChain(new RuntimeException("Failed to create blockchain transaction",
+                new HttpServerErrorException(HttpStatus.BAD_GATEWAY)), true);
+        chain.batchSupported = false;
+        List<CompletableFuture<String>> futures = submitAll(chain, 3);
+
+        assertAllFailed(futures);
+        assertThat(chain.singleCalls.get()).isEqualTo(1);
+    }
+
+    private List<CompletableFuture<String>> submitAll(FakeChain chain, int maxSplitDepth) {
+        // A long window so all eight transactions land in one flush
+        submitter = new BlockchainBatchSubmitter(chain, new SimpleMeterRegistry(), 500, 50, true, 600000, 1, 10, maxSplitDepth);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String comment = i == 5 ? BAD : "ok-" + i;
+            futures.add(submitter.submit(i, new DonationDetailDTO(comment, BigDecimal.ONE), "req-" + i));
+        }
+        return futures;
+    }
+
+    private void assertBadOneFailedAndOthersSent(List<CompletableFuture<String>> futures) throws Exception {
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<String> future = futures.get(i);
+            if (i == 5) {
+                assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+            } else {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("tx-req-" + i);
+            }
+        }
+    }
+
+    private void assertAllFailed(List<CompletableFuture<String>> futures) {
+        for (CompletableFuture<String> future : futures) {
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        }
+    }
+
+    /**
+     * Fails any batch or single call containing the bad transaction, or every call, with the given exception
+     */
+    private static final class FakeChain implements BlockchainService {
+        private final RuntimeException failure;
+        private final boolean down;
+        private final AtomicInteger batchCalls = new AtomicInteger();
+        private final AtomicInteger singleCalls = new AtomicInteger();
+        private volatile boolean batchSupported = true;
+
+        private FakeChain(RuntimeException failure, boolean down) {
+            this.failure = failure;
+            this.down = down;
+        }
+
+        @Override
+        public List<String> createDonationTransactions(List<BlockchainTransactionRequest> requests) throws BatchNotSupportedException {
+            if (!batchSupported) {
+                throw new BatchNotSupportedException("No batch endpoint", null);
+            }
+            batchCalls.incrementAndGet();
+            if (down || requests.stream().anyMatch(request -> BAD.equals(request.getTransaction().getComment()))) {
+                throw failure;
+            }
+            return requests.stream().map(request -> "tx-" + request.getUuid()).toList();
+        }
+
+        @Override
+        public String createDonationTransaction(Integer userId, DonationDetailDTO donationDetailDTO, String requestId) {
+            singleCalls.incrementAndGet();
+            if (down || BAD.equals(donationDetailDTO.getComment())) {
+                throw failure;
+            }
+            return "tx-" + requestId;
+        }
+
+        @Override
+        public String createDonationTransaction(Integer userId, DonationDetailDTO donationDetailDTO) {
+            throw new IllegalStateException("not used");
+        }
+
+        @Override
+        public boolean verifyTransaction(String chainId) {
+            throw new IllegalStateException("not used");
+        }
+
+        @Override
+        public ChainVerification checkTransaction(String chainId) {
+            throw new IllegalStateException("not used");
+        }
+    }
+}
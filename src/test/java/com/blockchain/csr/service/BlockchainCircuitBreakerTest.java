@@ -0,0 +1,234 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.dto.DonationDetailDTO;
+import com.blockchain.csr.service.Impl.BlockchainServiceImpl;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Breaker and bulkhead behaviour of BlockchainServiceImpl against a local fake chain node
+ * that can be told to slow down or fail.
+ */
+class BlockchainCircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 300;
+
+    private HttpServer fakeChain;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicLong delayMs = new AtomicLong();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    @BeforeEach
+    void startFakeChain() throws IOException {
+        fakeChain = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        fakeChain.setExecutor(Executors.newCachedThreadPool());
+        fakeChain.createContext("/api/transactions/add", exchange -> {
+            hits.incrementAndGet();
+            sleep(delayMs.get());
+            respond(exchange, status.get(), "tx-" + hits.get());
+        });
+        fakeChain.createContext("/api/blockchain/transactions/", exchange -> {
+            hits.incrementAndGet();
+            sleep(delayMs.get());
+            respond(exchange, status.get(), "{\"valid\":true}");
+        });
+        fakeChain.start();
+    }
+
+    @AfterEach
+    void stopFakeChain() {
+        fakeChain.stop(0);
+    }
+
+    @Test
+    void opensAfterFailureRateIsReachedAndFailsFast() {
+        BlockchainCircuitBreaker breaker = breaker(10, 1);
+        BlockchainServiceImpl service = service(breaker);
+        status.set(500);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> donate(service)).isInstanceOf(RuntimeException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.OPEN);
+
+        int hitsWhenOpened = hits.get();
+        assertThatThrownBy(() -> donate(service)).isInstanceOf(BlockchainCircuitBreaker.CallNotPermittedException.class);
+        assertThat(service.verifyTransaction("abc")).isFalse();
+        assertThat(hits.get()).isEqualTo(hitsWhenOpened);
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        BlockchainCircuitBreaker breaker = breaker(10, 1);
+        BlockchainServiceImpl service = service(breaker);
+        delayMs.set(150);
+
+        for (int i = 0; i < 4; i++) {
+            donate(service);
+        }
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void successfulProbesCloseTheBreaker() throws InterruptedException {
+        BlockchainCircuitBreaker breaker = breaker(10, 1);
+        BlockchainServiceImpl service = service(breaker);
+        status.set(503);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> donate(service)).isInstanceOf(RuntimeException.class);
+        }
+
+        status.set(200);
+        Thread.sleep(OPEN_DURATION_MS + 50);
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.HALF_OPEN);
+        donate(service);
+        donate(service);
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() throws InterruptedException {
+        BlockchainCircuitBreaker breaker = breaker(10, 1);
+        BlockchainServiceImpl service = service(breaker);
+        status.set(500);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> donate(service)).isInstanceOf(RuntimeException.class);
+        }
+
+        Thread.sleep(OPEN_DURATION_MS + 50);
+        assertThatThrownBy(() -> donate(service)).isNotInstanceOf(BlockchainCircuitBreaker.CallNotPermittedException.class);
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void lateProbeFromAnEarlierHalfOpenPeriodIsIgnored() throws Exception {
+        BlockchainCircuitBreaker breaker = breaker(10, 1);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.execute(() -> {
+                throw new IllegalStateException("down");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+        Thread.sleep(OPEN_DURATION_MS + 50);
+
+        // One probe hangs while the other fails and reopens the breaker
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> lateProbe = CompletableFuture.supplyAsync(() -> breaker.execute(() -> {
+            await(release);
+            return "late";
+        }));
+        while (breaker.snapshot().get("concurrentCalls").equals(0)) {
+            Thread.sleep(5);
+        }
+        assertThatThrownBy(() -> breaker.execute(() -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.OPEN);
+
+        // Its success arrives in the next HALF_OPEN period and must not count as one of its probes
+        Thread.sleep(OPEN_DURATION_MS + 50);
+        assertThat(breaker.execute(() -> "probe")).isEqualTo("probe");
+        release.countDown();
+        assertThat(lateProbe.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.HALF_OPEN);
+
+        assertThat(breaker.execute(() -> "probe")).isEqualTo("probe");
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() {
+        BlockchainCircuitBreaker breaker = breaker(10, 1);
+        BlockchainServiceImpl service = service(breaker);
+        status.set(400);
+
+        for (int i = 0; i < 6; i++) {
+            assertThat(service.verifyTransaction("abc")).isFalse();
+        }
+        assertThat(breaker.getState()).isEqualTo(BlockchainCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheConcurrencyLimit() throws Exception {
+        BlockchainCircuitBreaker breaker = breaker(1, 0);
+        BlockchainServiceImpl service = service(breaker);
+        delayMs.set(500);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> donate(service));
+        while (hits.get() == 0) {
+            Thread.sleep(5);
+        }
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> donate(service)).isInstanceOf(BlockchainCircuitBreaker.CallNotPermittedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(200);
+        assertThat(first.get(5, TimeUnit.SECONDS)).startsWith("tx-");
+    }
+
+    /**
+     * window 4, open after 50% failures once 4 calls are recorded, slow above 100 ms, 2 half-open probes
+     */
+    private BlockchainCircuitBreaker breaker(int maxConcurrent, long bulkheadWaitMs) {
+        return new BlockchainCircuitBreaker(4, 4, 50, 100, OPEN_DURATION_MS, 2, maxConcurrent, bulkheadWaitMs);
+    }
+
+    private BlockchainServiceImpl service(BlockchainCircuitBreaker breaker) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(1000);
+        factory.setReadTimeout(2000);
+        BlockchainServiceImpl service = new BlockchainServiceImpl(new RestTemplate(factory), breaker, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "blockchainApiBaseUrl", "http://127.0.0.1:" + fakeChain.getAddress().getPort());
+        return service;
+    }
+
+    private String donate(BlockchainServiceImpl service) {
+        return service.createDonationTransaction(1, new DonationDetailDTO("test", new BigDecimal("1.00")));
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", body.startsWith("{") ? "application/json" : "text/plain");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
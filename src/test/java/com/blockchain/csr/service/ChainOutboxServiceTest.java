@@ -0,0 +1,252 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.entity.ChainOutbox;
+import com.blockchain.csr.model.entity.UserActivity;
+import com.blockchain.csr.model.enums.ChainOutboxStatus;
+import com.blockchain.csr.repository.ChainOutboxRepository;
+import com.blockchain.csr.repository.UserActivityRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Claiming, rescheduling and result recording of the chain outbox against H2 in MySQL mode.
+ * Not transactional, so each service call commits like it does under the dispatcher.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.datasource.url=jdbc:h2:mem:csr-outbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;"
+                + "NON_KEYWORDS=USER,VALUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ChainOutboxService.class, BusinessMetrics.class, ChainOutboxServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChainOutboxServiceTest {
+
+    private static final Duration IN_FLIGHT_TIMEOUT = Duration.ofMinutes(2);
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ChainOutboxService chainOutboxService;
+    @Autowired
+    private ChainOutboxRepository chainOutboxRepository;
+    @Autowired
+    private UserActivityRepository userActivityRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clean() {
+        // H2 would store the converter's JSON text as a JSON string; MySQL parses it
+        jdbcTemplate.execute("ALTER TABLE user_activity ALTER COLUMN detail SET DATA TYPE CLOB");
+        chainOutboxRepository.deleteAll();
+        userActivityRepository.deleteAll();
+    }
+
+    @Test
+    void claimsDueRowsOnlyOnce() {
+        UserActivity userActivity = saveUserActivity(detail("first"));
+        ChainOutbox due = enqueue(userActivity);
+        ChainOutbox later = enqueue(userActivity);
+        later.setNextAttemptAt(now().plusMinutes(5));
+        chainOutboxRepository.save(later);
+
+        List<ChainOutbox> claimed = chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT);
+
+        assertThat(claimed).extracting(ChainOutbox::getId).containsExactly(due.getId());
+        assertThat(claimed.get(0).getStatus()).isEqualTo(ChainOutboxStatus.IN_FLIGHT.getValue());
+        assertThat(claimed.get(0).getAttempts()).isEqualTo(1);
+        assertThat(chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT)).isEmpty();
+    }
+
+    @Test
+    void reclaimsRowsWhoseLeaseWentStale() {
+        ChainOutbox outbox = enqueue(saveUserActivity(detail("first")));
+        assertThat(chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT)).hasSize(1);
+
+        // The node holding the lease died before recording a result
+        ChainOutbox abandoned = chainOutboxRepository.findById(outbox.getId()).orElseThrow();
+        abandoned.setLockedAt(now().minus(IN_FLIGHT_TIMEOUT).minusSeconds(1));
+        chainOutboxRepository.save(abandoned);
+
+        List<ChainOutbox> reclaimed = chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT);
+        assertThat(reclaimed).extracting(ChainOutbox::getId).containsExactly(outbox.getId());
+        assertThat(reclaimed.get(0).getAttempts()).isEqualTo(2);
+        assertThat(reclaimed.get(0).getRequestId()).isEqualTo(outbox.getRequestId());
+    }
+
+    @Test
+    void failedAttemptIsRescheduledAfterTheBackoff() {
+        ChainOutbox outbox = enqueue(saveUserActivity(detail("first")));
+        chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT);
+
+        chainOutboxService.markAttemptFailed(outbox.getId(), "502 Bad Gateway", Duration.ofMinutes(1));
+
+        ChainOutbox rescheduled = chainOutboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(rescheduled.getStatus()).isEqualTo(ChainOutboxStatus.PENDING.getValue());
+        assertThat(rescheduled.getLockedAt()).isNull();
+        assertThat(rescheduled.getLastError()).isEqualTo("502 Bad Gateway");
+        assertThat(Duration.between(now(), rescheduled.getNextAttemptAt()).getSeconds()).isCloseTo(60, within(5L));
+        assertThat(chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT)).isEmpty();
+    }
+
+    @Test
+    void givingUpMarksTheDetailFailed() {
+        UserActivity userActivity = saveUserActivity(detail("first"));
+        ChainOutbox outbox = enqueue(userActivity);
+        chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT);
+
+        chainOutboxService.markAttemptFailed(outbox.getId(), "502 Bad Gateway", null);
+
+        assertThat(chainOutboxRepository.findById(outbox.getId()).orElseThrow().getStatus())
+                .isEqualTo(ChainOutboxStatus.FAILED.getValue());
+        assertThat(storedDetail(userActivity)).containsEntry("chainState", "FAILED").doesNotContainKey("chainId");
+    }
+
+    @Test
+    void markSentWritesTheChainIdIntoTheDetail() {
+        UserActivity userActivity = saveUserActivity(detail("first"));
+        ChainOutbox outbox = enqueue(userActivity);
+        chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT);
+
+        chainOutboxService.markSent(outbox.getId(), "tx-1");
+
+        ChainOutbox sent = chainOutboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(ChainOutboxStatus.SENT.getValue());
+        assertThat(sent.getChainId()).isEqualTo("tx-1");
+        assertThat(sent.getLockedAt()).isNull();
+        assertThat(storedDetail(userActivity))
+                .containsEntry("comment", "first")
+                .containsEntry("chainId", "tx-1")
+                .containsEntry("chainState", "SENT");
+    }
+
+    @Test
+    void resultOfAnOlderSubmissionDoesNotTouchANewerDetail() {
+        UserActivity userActivity = saveUserActivity(detail("first"));
+        ChainOutbox first = enqueue(userActivity);
+        userActivity.setDetail(detail("second"));
+        userActivityRepository.save(userActivity);
+        enqueue(userActivity);
+
+        chainOutboxService.markSent(first.getId(), "tx-1");
+
+        assertThat(storedDetail(userActivity)).containsEntry("comment", "second").doesNotContainKey("chainId");
+    }
+
+    @Test
+    void resultWaitsForAConcurrentEditAndDoesNotOverwriteIt() throws Exception {
+        UserActivity userActivity = saveUserActivity(detail("first"));
+        ChainOutbox first = enqueue(userActivity);
+        chainOutboxService.claimDue(10, IN_FLIGHT_TIMEOUT);
+
+        // A user saves a new detail; their transaction has written but not committed yet
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> edit = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            UserActivity edited = userActivityRepository.findById(userActivity.getId()).orElseThrow();
+            edited.setDetail(detail("second"));
+            userActivityRepository.saveAndFlush(edited);
+            chainOutboxService.enqueue(edited, BigDecimal.ONE, "second");
+            chainOutboxRepository.flush();
+            written.countDown();
+            await(commit);
+        }));
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> result = CompletableFuture.runAsync(() -> chainOutboxService.markSent(first.getId(), "tx-1"));
+        Thread.sleep(300);
+        assertThat(result).isNotDone();
+
+        commit.countDown();
+        edit.get(5, TimeUnit.SECONDS);
+        result.get(5, TimeUnit.SECONDS);
+
+        assertThat(storedDetail(userActivity)).containsEntry("comment", "second").doesNotContainKey("chainId");
+        assertThat(chainOutboxRepository.findById(first.getId()).orElseThrow().getStatus())
+                .isEqualTo(ChainOutboxStatus.SENT.getValue());
+    }
+
+    private UserActivity saveUserActivity(LinkedHashMap<String, Object> detail) {
+        UserActivity userActivity = new UserActivity();
+        userActivity.setUserId(1);
+        userActivity.setActivityId(1);
+        userActivity.setState("SIGNED_UP");
+        userActivity.setCreatedAt(now());
+        userActivity.setDetail(detail);
+        return userActivityRepository.save(userActivity);
+    }
+
+    private ChainOutbox enqueue(UserActivity userActivity) {
+        return chainOutboxService.enqueue(userActivity, BigDecimal.ONE, "comment");
+    }
+
+    private Map<String, Object> storedDetail(UserActivity userActivity) {
+        Object detail = userActivityRepository.findById(userActivity.getId()).orElseThrow().getDetail();
+        return new ObjectMapper().convertValue(detail, LinkedHashMap.class);
+    }
+
+    private static LinkedHashMap<String, Object> detail(String comment) {
+        LinkedHashMap<String, Object> detail = new LinkedHashMap<>();
+        detail.put("comment", comment);
+        detail.put("amount", "10");
+        return detail;
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
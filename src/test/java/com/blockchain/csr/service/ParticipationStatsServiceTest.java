@@ -0,0 +1,185 @@
+package com.blockchain.csr.service;
+
+import com.blockchain.csr.model.entity.Activity;
+import com.blockchain.csr.model.entity.Event;
+import com.blockchain.csr.model.entity.EventStats;
+import com.blockchain.csr.model.entity.User;
+import com.blockchain.csr.model.mapper.ActivityMapper;
+import com.blockchain.csr.repository.ActivityRepository;
+import com.blockchain.csr.repository.ActivityStatsRepository;
+import com.blockchain.csr.repository.EventRepository;
+import com.blockchain.csr.repository.EventStatsRepository;
+import com.blockchain.csr.repository.UserActivityRepository;
+import com.blockchain.csr.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Event-level participant counting of concurrent signups and withdrawals against H2 in MySQL mode.
+ * Not transactional, so each service call commits like it does behind the controller.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.datasource.url=jdbc:h2:mem:csr-participation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;"
+                + "NON_KEYWORDS=USER,VALUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ActivityService.class, ParticipationStatsService.class, EventService.class, StatsCache.class,
+        ActivityMapper.class, ActivityDetailFactory.class, BusinessMetrics.class, ParticipationStatsServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ParticipationStatsServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ActivityRepository activityRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserActivityRepository userActivityRepository;
+    @Autowired
+    private EventStatsRepository eventStatsRepository;
+    @Autowired
+    private ActivityStatsRepository activityStatsRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Integer userId;
+    private Integer eventId;
+    private Integer firstActivityId;
+    private Integer secondActivityId;
+
+    @BeforeEach
+    void setUp() {
+        userActivityRepository.deleteAll();
+        activityStatsRepository.deleteAll();
+        eventStatsRepository.deleteAll();
+        activityRepository.deleteAll();
+        eventRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("volunteer");
+        user.setCreateTime(now());
+        userId = userRepository.save(user).getId();
+
+        Event event = new Event();
+        event.setName("Beach cleanup");
+        eventId = eventRepository.save(event).getId();
+        firstActivityId = saveActivity("Morning shift");
+        secondActivityId = saveActivity("Afternoon shift");
+    }
+
+    @Test
+    void concurrentSignupsToOneEventCountTheUserOnce() throws Exception {
+        // The first signup has written its record but not committed yet
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            activityService.signupActivity(firstActivityId, userId);
+            written.countDown();
+            await(commit);
+        }));
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> activityService.signupActivity(secondActivityId, userId));
+        Thread.sleep(300);
+        assertThat(second).isNotDone();
+
+        commit.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(participants()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWithdrawalsFromOneEventRemoveTheUserOnce() throws Exception {
+        activityService.signupActivity(firstActivityId, userId);
+        activityService.signupActivity(secondActivityId, userId);
+        assertThat(participants()).isEqualTo(1);
+
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            activityService.withdrawActivity(firstActivityId, userId);
+            written.countDown();
+            await(commit);
+        }));
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> activityService.withdrawActivity(secondActivityId, userId));
+        Thread.sleep(300);
+        assertThat(second).isNotDone();
+
+        commit.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(participants()).isEqualTo(0);
+    }
+
+    private Integer saveActivity(String name) {
+        Activity activity = new Activity();
+        activity.setName(name);
+        activity.setEventId(eventId);
+        activity.setDuration(60);
+        return activityRepository.save(activity).getId();
+    }
+
+    private Integer participants() {
+        return eventStatsRepository.findById(eventId).map(EventStats::getParticipants).orElse(0);
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of("Asia/Shanghai"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.blockchain.csr.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * No false negatives, and a false positive rate close to the configured one at the expected size
+ */
+class TokenBloomFilterTest {
+
+    private static final int PROBES = 200_000;
+
+    @ParameterizedTest
+    @CsvSource({"100000, 0.001", "100000, 0.01", "1000, 0.001"})
+    void noFalseNegativesAndConfiguredFalsePositiveRate(int expected, double falsePositiveRate) {
+        Random random = new Random(42);
+        TokenBloomFilter filter = new TokenBloomFilter(expected, falsePositiveRate);
+
+        List<String> inserted = new ArrayList<>(expected);
+        for (int i = 0; i < expected; i++) {
+            String jti = jti(random);
+            inserted.add(jti);
+            filter.put(jti);
+        }
+        assertThat(inserted).allMatch(filter::mightContain);
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain(jti(random))) {
+                falsePositives++;
+            }
+        }
+        double measured = (double) falsePositives / PROBES;
+        assertThat(measured).isBetween(falsePositiveRate / 4, falsePositiveRate * 2);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        TokenBloomFilter filter = new TokenBloomFilter(100_000, 0.001);
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain(jti(random))).isFalse();
+        }
+    }
+
+    private static String jti(Random random) {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+}